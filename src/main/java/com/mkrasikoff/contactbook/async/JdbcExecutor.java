@@ -0,0 +1,244 @@
+package com.mkrasikoff.contactbook.async;
+
+import com.mkrasikoff.contactbook.monitoring.RequestTiming;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This component runs blocking database work off the servlet worker threads, so controllers can return
+ * CompletableFuture and a slow database cannot fill the worker pool of the container.
+ *
+ * At most the configured number of tasks run at once, usually the size of the connection pool, and at most
+ * queue-capacity more wait for their turn. A task beyond that is rejected at once with a RejectedExecutionException.
+ * A task that does not complete within the timeout fails with a TimeoutException; if it is still waiting by then,
+ * it is never started.
+ *
+ * The mode selects the threads: PLATFORM uses a fixed pool of platform threads, VIRTUAL starts a virtual thread
+ * per task on Java 21 and later (and falls back to PLATFORM on older runtimes), and DIRECT runs every task
+ * on the calling thread, which turns the asynchronous handlers back into blocking ones.
+ *
+ * The RequestTiming of the submitting thread is bound to the thread that runs the task, and the time the task
+ * waited and the time it ran are added to it.
+ */
+@Component
+public class JdbcExecutor implements DisposableBean {
+
+    /**
+     * The ways tasks can be run.
+     */
+    public enum Mode {
+        DIRECT,
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private final Mode mode;
+    private final int threads;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final ExecutorService executor;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Constructs a new JdbcExecutor.
+     * @param mode the requested mode, see {@link Mode}.
+     * @param threads the maximum number of tasks running at once.
+     * @param queueCapacity the maximum number of tasks waiting to run.
+     * @param timeoutMs the time after which a task fails with a TimeoutException, in milliseconds.
+     */
+    public JdbcExecutor(@Value("${db.executor.mode:PLATFORM}") Mode mode,
+                        @Value("${db.executor.threads:10}") int threads,
+                        @Value("${db.executor.queue-capacity:100}") int queueCapacity,
+                        @Value("${db.executor.timeout-ms:10000}") long timeoutMs) {
+        ExecutorService virtualExecutor = mode == Mode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null;
+
+        this.mode = mode == Mode.VIRTUAL && virtualExecutor == null ? Mode.PLATFORM : mode;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        this.admitted = new Semaphore(threads + queueCapacity);
+        this.running = new Semaphore(threads, true);
+
+        switch (this.mode) {
+            case PLATFORM:
+                this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), new NamedThreadFactory());
+                break;
+            case VIRTUAL:
+                this.executor = virtualExecutor;
+                break;
+            default:
+                this.executor = null;
+        }
+    }
+
+    /**
+     * Runs the given task asynchronously.
+     * @param task the task, usually a call to a service that queries the database.
+     * @param <T> the type of the result.
+     * @return a future completed with the result of the task, or exceptionally with the exception of the task,
+     * a RejectedExecutionException if the queue is full, or a TimeoutException if the task took too long.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        if (!admitted.tryAcquire()) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException("Too many database tasks are waiting."));
+            return future;
+        }
+
+        RequestTiming timing = RequestTiming.current();
+        long submitted = System.nanoTime();
+        Runnable runnable = () -> run(task, future, timing, submitted);
+        if (executor == null) {
+            runnable.run();
+            return future;
+        }
+
+        try {
+            executor.execute(runnable);
+        } catch (RejectedExecutionException exc) {
+            admitted.release();
+            rejected.increment();
+            future.completeExceptionally(exc);
+            return future;
+        }
+
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((result, exc) -> {
+            if (exc instanceof TimeoutException) timedOut.increment();
+        });
+    }
+
+    /**
+     * Returns the effective mode, which is PLATFORM if VIRTUAL was requested on a runtime without virtual threads.
+     * @return the mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the timeout of a task.
+     * @return the timeout in milliseconds.
+     */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this executor.
+     * @return the statistics by name.
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new LinkedHashMap<>();
+        int waiting = threads + queueCapacity - admitted.availablePermits() - active.get();
+        snapshot.put("db.executor.threads", threads);
+        snapshot.put("db.executor.queue.capacity", queueCapacity);
+        snapshot.put("db.executor.active", active.get());
+        snapshot.put("db.executor.waiting", Math.max(waiting, 0));
+        snapshot.put("db.executor.completed", completed.sum());
+        snapshot.put("db.executor.rejected", rejected.sum());
+        snapshot.put("db.executor.timed.out", timedOut.sum());
+        snapshot.put("db.executor.skipped", skipped.sum());
+        return snapshot;
+    }
+
+    /**
+     * Stops the threads of this executor when the context is closed. Running tasks are interrupted.
+     */
+    @Override
+    public void destroy() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * Runs one task. The future is completed only after the counters are updated and the permits are released,
+     * so a caller woken by the future sees the executor as the task left it.
+     */
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future, RequestTiming timing, long submitted) {
+        T result = null;
+        Throwable failure = null;
+        boolean ran = false;
+        try {
+            if (future.isDone()) {
+                skipped.increment();
+                return;
+            }
+            running.acquireUninterruptibly();
+            try {
+                if (future.isDone()) {
+                    skipped.increment();
+                    return;
+                }
+                active.incrementAndGet();
+                RequestTiming previous = RequestTiming.bind(timing);
+                long start = System.nanoTime();
+                if (timing != null) timing.addQueue(start - submitted);
+                ran = true;
+                try {
+                    result = task.get();
+                } catch (Throwable exc) {
+                    failure = exc;
+                } finally {
+                    if (timing != null) timing.addService(System.nanoTime() - start);
+                    RequestTiming.bind(previous);
+                    active.decrementAndGet();
+                    completed.increment();
+                }
+            } finally {
+                running.release();
+            }
+        } finally {
+            admitted.release();
+        }
+
+        if (!ran) return;
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(result);
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exc) {
+            return null;
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jdbc-executor-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
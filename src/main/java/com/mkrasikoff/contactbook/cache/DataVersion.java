@@ -0,0 +1,158 @@
+package com.mkrasikoff.contactbook.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This component holds the version of the people data, for the whole table and for single rows.
+ *
+ * The version is bumped by PersonService after every write has reached the database. Results derived from
+ * several rows, such as list pages, are tagged with the version that was current before they were read,
+ * so a result read concurrently with a write is tagged with an already outdated version and never served.
+ *
+ * The version of a row is the table version of the last write to it. Only the most recently written rows are
+ * remembered; a row that was never written or was forgotten gets the floor version, which is raised to the version
+ * of every forgotten row and of every write that may have changed any row. So the version of a row can be newer
+ * than its last write, but never older. Bumps are serialized, so a bump of the whole table cannot drop the version
+ * of a row written at the same time. Versions are turned into strong ETags prefixed with the start time
+ * of this instance, so tags issued before a restart do not match.
+ */
+@Component
+public class DataVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified = System.currentTimeMillis();
+    private final AtomicReference<Stamp> floor = new AtomicReference<>(new Stamp(0, lastModified));
+    private final Cache<Integer, Stamp> rows;
+
+    /**
+     * Constructs a new DataVersion.
+     * @param maximumRows the maximum number of rows whose own version is remembered.
+     */
+    public DataVersion(@Value("${people.row-versions.maximum-size:100000}") long maximumRows) {
+        this.rows = Caffeine.newBuilder()
+                .maximumSize(maximumRows)
+                .executor(Runnable::run)
+                .<Integer, Stamp>evictionListener((id, stamp, cause) -> raiseFloor(stamp))
+                .build();
+    }
+
+    /**
+     * Returns the current version.
+     * @return the version.
+     */
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * Returns the version of the row with the given ID.
+     * @param id the ID of the row.
+     * @return the version of the last write to the row, or a newer one.
+     */
+    public long get(int id) {
+        return stampOf(id).version;
+    }
+
+    /**
+     * Moves to a new version after the data has changed in rows that are not known.
+     * Every row moves to the new version.
+     * @return the new version.
+     */
+    public synchronized long bump() {
+        Stamp stamp = next();
+        raiseFloor(stamp);
+        rows.invalidateAll();
+        return stamp.version;
+    }
+
+    /**
+     * Moves to a new version after the row with the given ID has changed.
+     * @param id the ID of the changed row.
+     * @return the new version.
+     */
+    public synchronized long bump(int id) {
+        Stamp stamp = next();
+        rows.put(id, stamp);
+        return stamp.version;
+    }
+
+    /**
+     * Moves to a new version after the rows with the given IDs have changed.
+     * @param ids the IDs of the changed rows.
+     * @return the new version.
+     */
+    public synchronized long bump(Collection<Integer> ids) {
+        Stamp stamp = next();
+        for (int id : ids) {
+            rows.put(id, stamp);
+        }
+        return stamp.version;
+    }
+
+    /**
+     * Returns the time of the last change, in milliseconds since the epoch.
+     * @return the time of the last change, or the start time of this instance.
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the time of the last change of the row with the given ID, in milliseconds since the epoch.
+     * @param id the ID of the row.
+     * @return the time of the last change of the row, or a later time.
+     */
+    public long lastModified(int id) {
+        return stampOf(id).modifiedAt;
+    }
+
+    /**
+     * Returns a strong ETag of the current version, for results derived from the whole table.
+     * @return the quoted ETag.
+     */
+    public String etag() {
+        return "\"" + epoch + "-" + get() + "\"";
+    }
+
+    /**
+     * Returns a strong ETag of the version of the row with the given ID.
+     * @param id the ID of the row.
+     * @return the quoted ETag.
+     */
+    public String etag(int id) {
+        return "\"" + epoch + "-" + id + "-" + get(id) + "\"";
+    }
+
+    private Stamp next() {
+        long now = System.currentTimeMillis();
+        Stamp stamp = new Stamp(version.incrementAndGet(), now);
+        lastModified = now;
+        return stamp;
+    }
+
+    private Stamp stampOf(int id) {
+        Stamp stamp = rows.getIfPresent(id);
+        return stamp != null ? stamp : floor.get();
+    }
+
+    private void raiseFloor(Stamp stamp) {
+        floor.accumulateAndGet(stamp, (current, candidate) -> candidate.version > current.version ? candidate : current);
+    }
+
+    private static final class Stamp {
+        private final long version;
+        private final long modifiedAt;
+
+        private Stamp(long version, long modifiedAt) {
+            this.version = version;
+            this.modifiedAt = modifiedAt;
+        }
+    }
+}
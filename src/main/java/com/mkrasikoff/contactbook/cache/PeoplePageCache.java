@@ -0,0 +1,106 @@
+package com.mkrasikoff.contactbook.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mkrasikoff.contactbook.models.PeoplePage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * This component caches the pages of the people lists, so the first pages that are requested over and over
+ * do not run the sorted query every time.
+ *
+ * A page is cached under its cursor, size, sort column and order together with the DataVersion read before
+ * the page was loaded. A write bumps the version, which makes every page cached before it unreachable without
+ * scanning or clearing the cache; those entries are evicted as the cache fills up.
+ *
+ * Memory use is capped by the total number of people on the cached pages.
+ */
+@Component
+public class PeoplePageCache {
+
+    private final Cache<PageKey, PeoplePage> cache;
+    private final DataVersion dataVersion;
+
+    /**
+     * Constructs a new PeoplePageCache.
+     * @param dataVersion the version the cached pages are tagged with.
+     * @param maximumRows the maximum number of people on all cached pages together.
+     */
+    public PeoplePageCache(DataVersion dataVersion, @Value("${people.page-cache.maximum-rows:10000}") long maximumRows) {
+        this.dataVersion = dataVersion;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumRows)
+                .weigher((PageKey key, PeoplePage page) -> page.getPeople().size() + 1)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the page for the given parameters, loading it with the given loader if it is not cached
+     * for the current version.
+     * @param cursor the cursor of the page, or null for the first page.
+     * @param size the number of people per page.
+     * @param sort the sort column.
+     * @param reverse whether the sorting order is descending.
+     * @param loader loads the page from the database.
+     * @return the page.
+     */
+    public PeoplePage get(String cursor, int size, String sort, boolean reverse, Supplier<PeoplePage> loader) {
+        PageKey key = new PageKey(dataVersion.get(), cursor, size, sort, reverse);
+        return cache.get(key, ignored -> loader.get());
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     * @return hit, miss and eviction counters together with the current size and data version.
+     */
+    public Map<String, Number> snapshot() {
+        CacheStats stats = cache.stats();
+
+        Map<String, Number> snapshot = new LinkedHashMap<>();
+        snapshot.put("people.page-cache.size", cache.estimatedSize());
+        snapshot.put("people.page-cache.hits", stats.hitCount());
+        snapshot.put("people.page-cache.misses", stats.missCount());
+        snapshot.put("people.page-cache.hit.ratio", stats.hitRate());
+        snapshot.put("people.page-cache.evictions", stats.evictionCount());
+        snapshot.put("people.data.version", dataVersion.get());
+        return snapshot;
+    }
+
+    private static final class PageKey {
+        private final long version;
+        private final String cursor;
+        private final int size;
+        private final String sort;
+        private final boolean reverse;
+
+        private PageKey(long version, String cursor, int size, String sort, boolean reverse) {
+            this.version = version;
+            this.cursor = cursor;
+            this.size = size;
+            this.sort = sort;
+            this.reverse = reverse;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof PageKey)) return false;
+            PageKey key = (PageKey) other;
+            return version == key.version && size == key.size && reverse == key.reverse
+                    && Objects.equals(cursor, key.cursor) && sort.equals(key.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, cursor, size, sort, reverse);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.mkrasikoff.contactbook.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException;
+import com.mkrasikoff.contactbook.models.Person;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * This component is a bounded read-through cache of Person objects by ID, kept in front of PersonRepository.findById.
+ *
+ * The cache is backed by Caffeine, which evicts with W-TinyLFU once the maximum size is reached.
+ * IDs that do not exist are cached as well, for a shorter time, so repeated requests for a missing ID
+ * do not query the database. Entries have to be invalidated by the caller on every write; the TTL only bounds
+ * how long writes made outside this application instance can stay unnoticed.
+ *
+ * Evictions run on the calling thread, so the size bound and the counters are up to date after every call.
+ * A load and an invalidation of the same ID are serialized by the cache, so a value loaded before a write
+ * cannot be stored after the write has invalidated it. Callers receive copies and may modify them.
+ */
+@Component
+public class PersonCache {
+
+    private final Cache<Integer, Optional<Person>> cache;
+    private final LongAdder negativeHits = new LongAdder();
+
+    /**
+     * Constructs a new PersonCache.
+     * @param maximumSize the maximum number of cached IDs, found or not.
+     * @param ttlMs how long a found Person is cached, in milliseconds.
+     * @param negativeTtlMs how long a missing ID is cached, in milliseconds.
+     */
+    public PersonCache(@Value("${people.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${people.cache.ttl-ms:600000}") long ttlMs,
+                       @Value("${people.cache.negative-ttl-ms:30000}") long negativeTtlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry(TimeUnit.MILLISECONDS.toNanos(ttlMs), TimeUnit.MILLISECONDS.toNanos(negativeTtlMs)))
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the Person with the given ID, loading it with the given loader on a miss.
+     * @param id the ID of the Person.
+     * @param loader loads the Person from the database and throws PersonNotFoundException if it does not exist.
+     * @return a copy of the cached Person.
+     * @throws PersonNotFoundException if the Person does not exist, now or when the missing ID was cached.
+     */
+    public Person get(int id, IntFunction<Person> loader) {
+        Optional<Person> cached = cache.get(id, key -> load(key, loader));
+
+        if (cached.isEmpty()) {
+            negativeHits.increment();
+            throw new PersonNotFoundException("Person with id " + id + " not found.");
+        }
+        return copy(cached.get());
+    }
+
+    /**
+     * Drops the cached entry of the given ID. Has to be called after the Person is created, updated or deleted.
+     * @param id the ID of the Person.
+     */
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Drops all cached entries. Has to be called after all Person objects are deleted.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     * @return hit, miss and eviction counters together with the current size.
+     */
+    public Map<String, Number> snapshot() {
+        CacheStats stats = cache.stats();
+
+        Map<String, Number> snapshot = new LinkedHashMap<>();
+        snapshot.put("people.cache.size", cache.estimatedSize());
+        snapshot.put("people.cache.hits", stats.hitCount());
+        snapshot.put("people.cache.negative.hits", negativeHits.sum());
+        snapshot.put("people.cache.misses", stats.missCount());
+        snapshot.put("people.cache.hit.ratio", stats.hitRate());
+        snapshot.put("people.cache.evictions", stats.evictionCount());
+        snapshot.put("people.cache.load.avg.micros", (long) stats.averageLoadPenalty() / 1_000);
+        return snapshot;
+    }
+
+    private static Optional<Person> load(int id, IntFunction<Person> loader) {
+        try {
+            return Optional.of(loader.apply(id));
+        } catch (PersonNotFoundException exc) {
+            return Optional.empty();
+        }
+    }
+
+    private static Person copy(Person person) {
+        return new Person(person.getId(), person.getName(), person.getSurname(), person.getEmail(), person.getLogoId());
+    }
+
+    /**
+     * Expires found Person objects and missing IDs after their own TTLs, counted from the time they were loaded.
+     */
+    private static final class EntryExpiry implements Expiry<Integer, Optional<Person>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private EntryExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Integer id, Optional<Person> person, long currentTime) {
+            return person.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Integer id, Optional<Person> person, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, person, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Integer id, Optional<Person> person, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.mkrasikoff.contactbook.configs;
 
+import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.filter.HiddenHttpMethodFilter;
+import org.springframework.web.servlet.FrameworkServlet;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterRegistration;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import java.util.EnumSet;
 
 public class DispatcherServletInitializer extends AbstractAnnotationConfigDispatcherServletInitializer {
 
@@ -26,10 +31,24 @@ public class DispatcherServletInitializer extends AbstractAnnotationConfigDispat
     public void onStartup(ServletContext aServletContext) throws ServletException {
         super.onStartup(aServletContext);
         registerHiddenFieldFilter(aServletContext);
+        registerRequestTimingFilter(aServletContext);
     }
 
     private void registerHiddenFieldFilter(ServletContext aContext) {
-        aContext.addFilter("hiddenHttpMethodFilter",
-                new HiddenHttpMethodFilter()).addMappingForUrlPatterns(null ,true, "/*");
+        FilterRegistration.Dynamic registration = aContext.addFilter("hiddenHttpMethodFilter", new HiddenHttpMethodFilter());
+        registration.setAsyncSupported(true);
+        registration.addMappingForUrlPatterns(null ,true, "/*");
+    }
+
+    /**
+     * Registers the RequestTimingFilter bean of the servlet context after the hidden field filter,
+     * so requests are routed by the HTTP method the form asked for.
+     */
+    private void registerRequestTimingFilter(ServletContext aContext) {
+        DelegatingFilterProxy filter = new DelegatingFilterProxy("requestTimingFilter");
+        filter.setContextAttribute(FrameworkServlet.SERVLET_CONTEXT_PREFIX + getServletName());
+        FilterRegistration.Dynamic registration = aContext.addFilter("requestTimingFilter", filter);
+        registration.setAsyncSupported(true);
+        registration.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST, DispatcherType.ASYNC), true, "/*");
     }
 }
@@ -1,11 +1,27 @@
 package com.mkrasikoff.contactbook.configs;
 
+import com.mkrasikoff.contactbook.monitoring.InstrumentedDataSource;
+import com.mkrasikoff.contactbook.monitoring.PoolStatistics;
+import com.mkrasikoff.contactbook.monitoring.QueryMetrics;
+import com.mkrasikoff.contactbook.monitoring.StatementMetrics;
+import com.mkrasikoff.contactbook.monitoring.TimedThymeleafView;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewResolverRegistry;
@@ -18,20 +34,20 @@ import javax.sql.DataSource;
 @Configuration
 @ComponentScan("com.mkrasikoff.contactbook")
 @EnableWebMvc
+@EnableScheduling
+@PropertySource("classpath:application.properties")
 public class SpringConfig implements WebMvcConfigurer {
 
     private final ApplicationContext applicationContext;
+    private final Environment environment;
 
     private static final String PREFIX = "/WEB-INF/views/";
     private static final String SUFFIX = ".html";
-    private static final String DRIVER_CLASS_NAME = "com.mysql.cj.jdbc.Driver";
-    private static final String DB_URL = "jdbc:mysql://db:3306/database";
+    private static final long ASYNC_TIMEOUT_MARGIN_MS = 5_000;
 
-    private static final String DB_USERNAME = "admin";
-    private static final String DB_PASSWORD = "password";
-
-    public SpringConfig(ApplicationContext applicationContext) {
+    public SpringConfig(ApplicationContext applicationContext, Environment environment) {
         this.applicationContext = applicationContext;
+        this.environment = environment;
     }
 
     @Bean
@@ -51,13 +67,26 @@ public class SpringConfig implements WebMvcConfigurer {
         return templateEngine;
     }
 
+    /**
+     * Resolves views to TimedThymeleafView, so the rendering time of every page is reported in its Server-Timing header.
+     */
     @Override
     public void configureViewResolvers(ViewResolverRegistry registry) {
         ThymeleafViewResolver resolver = new ThymeleafViewResolver();
+        resolver.setViewClass(TimedThymeleafView.class);
         resolver.setTemplateEngine(templateEngine());
         registry.viewResolver(resolver);
     }
 
+    /**
+     * Gives asynchronous handlers a little longer than the timeout of JdbcExecutor, so a slow task fails with
+     * its own TimeoutException and this limit only catches handlers that never complete.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(environment.getProperty("db.executor.timeout-ms", Long.class, 10_000L) + ASYNC_TIMEOUT_MARGIN_MS);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry
@@ -65,20 +94,67 @@ public class SpringConfig implements WebMvcConfigurer {
                 .addResourceLocations("/static/");
     }
 
+    /**
+     * Creates the pooled DataSource used by the application.
+     * Connection and pool settings are read from application.properties (and can be overridden by system properties).
+     * Pool events are reported to PoolStatistics and every statement is reported to StatementMetrics.
+     */
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(PoolStatistics poolStatistics, StatementMetrics statementMetrics) {
+        HikariConfig config = new HikariConfig();
+
+        config.setDriverClassName(environment.getRequiredProperty("db.driver-class-name"));
+        config.setJdbcUrl(environment.getRequiredProperty("db.url"));
+        config.setUsername(environment.getRequiredProperty("db.username"));
+        config.setPassword(environment.getRequiredProperty("db.password"));
+
+        config.setPoolName(environment.getProperty("db.pool.name", "contact-book-pool"));
+        config.setMinimumIdle(environment.getProperty("db.pool.minimum-idle", Integer.class, 2));
+        config.setMaximumPoolSize(environment.getProperty("db.pool.maximum-size", Integer.class, 10));
+        config.setIdleTimeout(environment.getProperty("db.pool.idle-timeout-ms", Long.class, 600_000L));
+        config.setMaxLifetime(environment.getProperty("db.pool.max-lifetime-ms", Long.class, 1_800_000L));
+        config.setConnectionTimeout(environment.getProperty("db.pool.connection-timeout-ms", Long.class, 5_000L));
+        config.setValidationTimeout(environment.getProperty("db.pool.validation-timeout-ms", Long.class, 2_000L));
+        config.setKeepaliveTime(environment.getProperty("db.pool.keepalive-time-ms", Long.class, 300_000L));
+        config.setLeakDetectionThreshold(environment.getProperty("db.pool.leak-detection-threshold-ms", Long.class, 0L));
+        config.setMetricsTrackerFactory(poolStatistics);
+
+        return new InstrumentedDataSource(new HikariDataSource(config), statementMetrics);
+    }
+
+    /**
+     * Creates the metrics of the methods of the person repository, shown at /monitoring/repository.
+     */
+    @Bean
+    public QueryMetrics queryMetrics() {
+        return new QueryMetrics();
+    }
+
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
 
-        dataSource.setDriverClassName(DRIVER_CLASS_NAME);
-        dataSource.setUrl(DB_URL);
-        dataSource.setUsername(DB_USERNAME);
-        dataSource.setPassword(DB_PASSWORD);
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
 
-        return dataSource;
+    /**
+     * Creates the Bean Validation validator shared by the services that check Person objects outside of a form.
+     * Messages are interpolated without the Expression Language, which is not on the classpath.
+     * It is primary over the validator Spring MVC creates for itself.
+     */
+    @Bean
+    @Primary
+    public LocalValidatorFactoryBean validator() {
+        LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.setMessageInterpolator(new ParameterMessageInterpolator());
+        return validator;
     }
 
     @Bean
-    public JdbcTemplate jdbcTemplate() {
-        return new JdbcTemplate(dataSource());
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
     }
 }
@@ -0,0 +1,60 @@
+package com.mkrasikoff.contactbook.controllers;
+
+import com.mkrasikoff.contactbook.cache.DataVersion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
+
+/**
+ * Conditional GET support for the read endpoints of the controllers.
+ *
+ * The ETag and Last-Modified of a response are taken from DataVersion before anything is read, so a request
+ * with a matching If-None-Match (or If-Modified-Since) is answered with 304 without querying the database.
+ * Responses are marked with Cache-Control: no-cache, so clients store them but revalidate before every use.
+ *
+ * An asynchronous handler completes with {@link #notModifiedView()} instead of null, because the 304 state
+ * of the request is not carried over to the dispatch that handles the result.
+ */
+final class ConditionalGet {
+
+    private static final String NO_CACHE = "no-cache";
+    private static final View EMPTY_VIEW = (model, request, response) -> { };
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Sets the validators of a response derived from the whole table and checks them against the request.
+     * @param request the current request.
+     * @param dataVersion the version of the people data.
+     * @return true if the response is set to 304 and the handler should return without a body.
+     */
+    static boolean notModified(ServletWebRequest request, DataVersion dataVersion) {
+        return notModified(request, dataVersion.etag(), dataVersion.lastModified());
+    }
+
+    /**
+     * Sets the validators of a response derived from one row and checks them against the request.
+     * @param request the current request.
+     * @param dataVersion the version of the people data.
+     * @param id the ID of the row.
+     * @return true if the response is set to 304 and the handler should return without a body.
+     */
+    static boolean notModified(ServletWebRequest request, DataVersion dataVersion, int id) {
+        return notModified(request, dataVersion.etag(id), dataVersion.lastModified(id));
+    }
+
+    /**
+     * Returns a view that renders nothing, for a response already set to 304.
+     * @return the empty view.
+     */
+    static ModelAndView notModifiedView() {
+        return new ModelAndView(EMPTY_VIEW);
+    }
+
+    private static boolean notModified(ServletWebRequest request, String etag, long lastModified) {
+        if (request.getResponse() != null) request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+        return request.checkNotModified(etag, lastModified);
+    }
+}
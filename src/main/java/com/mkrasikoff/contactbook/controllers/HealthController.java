@@ -0,0 +1,67 @@
+package com.mkrasikoff.contactbook.controllers;
+
+import com.mkrasikoff.contactbook.monitoring.DatabaseHealth;
+import com.mkrasikoff.contactbook.startup.StartupPhases;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import java.util.Map;
+
+/**
+ * The HealthController tells a load balancer or an orchestrator whether the application runs and whether it can
+ * serve requests, in the same plain text format as the MonitoringController.
+ *
+ * Liveness only shows that the application answers, so a restart is not triggered by a slow database or a long
+ * startup. Readiness also requires the required startup phases to be done and the database to answer.
+ */
+@Controller
+@RequestMapping("/health")
+public class HealthController {
+
+    private final StartupPhases startupPhases;
+    private final DatabaseHealth databaseHealth;
+
+    public HealthController(StartupPhases startupPhases, DatabaseHealth databaseHealth) {
+        this.startupPhases = startupPhases;
+        this.databaseHealth = databaseHealth;
+    }
+
+    /**
+     * Display whether the application is alive.
+     *
+     * @return always 200 with the status UP.
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getLiveness() {
+        return ResponseEntity.ok("status UP\n");
+    }
+
+    /**
+     * Display whether the application can serve requests.
+     *
+     * @return 200 if it is ready, 503 otherwise, with the state of the database and the state and duration
+     * of every startup phase.
+     */
+    @GetMapping(value = "/ready", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getReadiness() {
+        boolean started = startupPhases.isReady();
+        boolean databaseUp = databaseHealth.isUp();
+        boolean ready = started && databaseUp;
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("status ").append(ready ? "UP" : "DOWN").append('\n');
+        builder.append("database ").append(databaseUp ? "UP" : "DOWN").append('\n');
+        format(builder, startupPhases.snapshot());
+
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(builder.toString());
+    }
+
+    private void format(StringBuilder builder, Map<String, Object> stats) {
+        stats.forEach((name, value) -> builder.append(name).append(' ').append(value).append('\n'));
+    }
+}
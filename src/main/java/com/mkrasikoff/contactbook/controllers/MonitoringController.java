@@ -0,0 +1,139 @@
+package com.mkrasikoff.contactbook.controllers;
+
+import com.mkrasikoff.contactbook.async.JdbcExecutor;
+import com.mkrasikoff.contactbook.cache.PeoplePageCache;
+import com.mkrasikoff.contactbook.cache.PersonCache;
+import com.mkrasikoff.contactbook.monitoring.PoolStatistics;
+import com.mkrasikoff.contactbook.monitoring.QueryMetrics;
+import com.mkrasikoff.contactbook.monitoring.RequestMetrics;
+import com.mkrasikoff.contactbook.monitoring.StatementMetrics;
+import com.mkrasikoff.contactbook.services.PeopleCounter;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The MonitoringController exposes runtime statistics of the application as plain text,
+ * one "name value" pair per line, so they can be read by a human or scraped by a script.
+ */
+@Controller
+@RequestMapping("/monitoring")
+public class MonitoringController {
+
+    private final PoolStatistics poolStatistics;
+    private final PeopleCounter peopleCounter;
+    private final PersonCache personCache;
+    private final PeoplePageCache peoplePageCache;
+    private final JdbcExecutor jdbcExecutor;
+    private final QueryMetrics queryMetrics;
+    private final StatementMetrics statementMetrics;
+    private final RequestMetrics requestMetrics;
+
+    public MonitoringController(PoolStatistics poolStatistics, PeopleCounter peopleCounter,
+                                PersonCache personCache, PeoplePageCache peoplePageCache, JdbcExecutor jdbcExecutor,
+                                QueryMetrics queryMetrics, StatementMetrics statementMetrics, RequestMetrics requestMetrics) {
+        this.poolStatistics = poolStatistics;
+        this.peopleCounter = peopleCounter;
+        this.personCache = personCache;
+        this.peoplePageCache = peoplePageCache;
+        this.jdbcExecutor = jdbcExecutor;
+        this.queryMetrics = queryMetrics;
+        this.statementMetrics = statementMetrics;
+        this.requestMetrics = requestMetrics;
+    }
+
+    /**
+     * Display the statistics of the database connection pool.
+     *
+     * @return active, idle and waiting counts together with connection acquisition latency.
+     */
+    @GetMapping(value = "/pool", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getPoolStatistics() {
+        return format(poolStatistics.snapshot());
+    }
+
+    /**
+     * Display the statistics of the cache of people by ID and of the cache of list pages.
+     *
+     * @return hit, miss and eviction counters together with the current sizes of the caches.
+     */
+    @GetMapping(value = "/cache", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getCacheStatistics() {
+        return format(personCache.snapshot()) + format(peoplePageCache.snapshot());
+    }
+
+    /**
+     * Display the statistics of the executor that runs the database work of the asynchronous handlers.
+     *
+     * @return the mode of the executor together with its active, waiting, rejected and timed out tasks.
+     */
+    @GetMapping(value = "/executor", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getExecutorStatistics() {
+        return "db.executor.mode " + jdbcExecutor.getMode() + "\n" + format(jdbcExecutor.snapshot());
+    }
+
+    /**
+     * Display the statistics of every method of the person repository.
+     *
+     * @return the calls, errors and rows of every method together with its latency percentiles since the start.
+     */
+    @GetMapping(value = "/repository", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getRepositoryStatistics() {
+        return format(queryMetrics.snapshot("repository"));
+    }
+
+    /**
+     * Display the statistics of every JDBC statement, aggregated by its fingerprint.
+     *
+     * @return a comment line with the normalized SQL of every fingerprint, followed by the calls, errors and rows
+     * of every fingerprint together with its latency percentiles since the start.
+     */
+    @GetMapping(value = "/statements", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getStatementStatistics() {
+        StringBuilder builder = new StringBuilder();
+        statementMetrics.fingerprints().forEach((id, fingerprint) ->
+                builder.append("# ").append(id).append(' ').append(fingerprint).append('\n'));
+        return builder + format(statementMetrics.snapshot());
+    }
+
+    /**
+     * Display the statistics of every route of the application.
+     *
+     * @return the requests and errors of every route together with the latency percentiles of the requests
+     * and of their time in the executor queue, the services, the database and the rendering since the start.
+     */
+    @GetMapping(value = "/requests", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getRequestStatistics() {
+        return format(requestMetrics.snapshot());
+    }
+
+    /**
+     * Reconcile the in-memory people counter with the database.
+     *
+     * @return the mode of the counter and the reconciled count.
+     */
+    @PostMapping(value = "/count/reconcile", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String reconcilePeopleCount() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("people.count", peopleCounter.reconcile());
+        return "people.count.mode " + peopleCounter.getMode() + "\n" + format(stats);
+    }
+
+    private String format(Map<String, Number> stats) {
+        StringBuilder builder = new StringBuilder();
+        stats.forEach((name, value) -> builder.append(name).append(' ').append(value).append('\n'));
+        return builder.toString();
+    }
+}
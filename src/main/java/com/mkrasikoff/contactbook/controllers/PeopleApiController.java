@@ -0,0 +1,301 @@
+package com.mkrasikoff.contactbook.controllers;
+
+import com.mkrasikoff.contactbook.cache.DataVersion;
+import com.mkrasikoff.contactbook.exceptions.InvalidPageCursorException;
+import com.mkrasikoff.contactbook.exceptions.InvalidSortParameterException;
+import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException;
+import com.mkrasikoff.contactbook.json.PeopleJsonWriter;
+import com.mkrasikoff.contactbook.models.BulkUpdateRequest;
+import com.mkrasikoff.contactbook.models.BulkUpdateResult;
+import com.mkrasikoff.contactbook.models.ImportResult;
+import com.mkrasikoff.contactbook.models.PeoplePage;
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.services.BulkUpdateService;
+import com.mkrasikoff.contactbook.services.PeopleImportService;
+import com.mkrasikoff.contactbook.services.PersonService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import javax.validation.Valid;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The PeopleApiController handles the JSON API for the Person entity. It includes CRUD operations and search
+ * for client-side pages, as well as export, import and bulk updates for clients that work with many people at once.
+ * Errors are returned as {"error": message} with a 4xx status.
+ */
+@RestController
+@RequestMapping("/api/people")
+public class PeopleApiController {
+
+    /**
+     * The largest number of people per page.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final PersonService personService;
+    private final BulkUpdateService bulkUpdateService;
+    private final PeopleImportService peopleImportService;
+    private final DataVersion dataVersion;
+
+    public PeopleApiController(PersonService personService, BulkUpdateService bulkUpdateService,
+                               PeopleImportService peopleImportService, DataVersion dataVersion) {
+        this.personService = personService;
+        this.bulkUpdateService = bulkUpdateService;
+        this.peopleImportService = peopleImportService;
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * Get a page of people as JSON.
+     *
+     * Pages are addressed with an opaque cursor like the HTML list. The response is streamed as
+     * {"people": [...], "page": 1, "previousCursor": null, "nextCursor": "...", "total": 42, "pages": 5}.
+     * The people of a page are summaries without the email. A request with the ETag of the current data version
+     * is answered with 304.
+     *
+     * @param cursor An opaque cursor of the page. The first page is returned if not provided.
+     * @param size The number of people per page, from 1 to MAX_PAGE_SIZE. Defaults to 10.
+     * @param sort The attribute by which to sort people. Defaults to 'id'.
+     * @param reverse Whether to sort in descending order. Defaults to false.
+     * @param request The current request, checked for If-None-Match.
+     * @param response The response the page is written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping
+    public void getPeople(@RequestParam(required = false) String cursor,
+                          @RequestParam(defaultValue = "10") int size,
+                          @RequestParam(defaultValue = "id") String sort,
+                          @RequestParam(defaultValue = "false") boolean reverse,
+                          ServletWebRequest request,
+                          HttpServletResponse response) throws IOException {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The page size should be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (ConditionalGet.notModified(request, dataVersion)) return;
+        PeoplePage page = personService.showPeoplePageByCursor(cursor, size, sort, reverse);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        PeopleJsonWriter.writePage(page, response.getOutputStream());
+    }
+
+    /**
+     * Get a single person based on his ID.
+     * A request with the ETag of the current version of the person is answered with 304.
+     *
+     * @param id The ID of the person.
+     * @param request The current request, checked for If-None-Match.
+     * @return The person, null if not modified, or a 404 response if it does not exist.
+     */
+    @GetMapping("/{id}")
+    public Person getPerson(@PathVariable("id") int id, ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, dataVersion, id)) return null;
+        return personService.showPerson(id);
+    }
+
+    /**
+     * Search people by name or surname. The response is streamed as {"people": [...], "total": 3}.
+     * A request with the ETag of the current data version is answered with 304.
+     *
+     * @param query The search query.
+     * @param request The current request, checked for If-None-Match.
+     * @param response The response the matching people are written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/search")
+    public void search(@RequestParam String query, ServletWebRequest request, HttpServletResponse response) throws IOException {
+        if (ConditionalGet.notModified(request, dataVersion)) return;
+        List<Person> people = personService.search(query);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        PeopleJsonWriter.writeList(people, response.getOutputStream());
+    }
+
+    /**
+     * Create a person. The ID is always generated.
+     *
+     * @param person The person to create, checked against the same constraints as the form.
+     * @return A 201 response with the created person and its location.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Person> create(@RequestBody @Valid Person person) {
+        person.setId(0);
+        int id = personService.savePerson(person);
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(id).toUri())
+                .body(person);
+    }
+
+    /**
+     * Replace the fields of a person.
+     *
+     * @param id The ID of the person to update.
+     * @param person The new fields, checked against the same constraints as the form.
+     * @return The updated person, or a 404 response if it does not exist.
+     */
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Person update(@PathVariable("id") int id, @RequestBody @Valid Person person) {
+        personService.updatePerson(person, id);
+        person.setId(id);
+        return person;
+    }
+
+    /**
+     * Delete a person.
+     *
+     * @param id The ID of the person to delete.
+     * @return A 204 response, or a 404 response if the person does not exist.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable("id") int id) {
+        personService.deletePerson(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Export all people as CSV.
+     *
+     * The rows are streamed from the database straight to the response, so memory use does not depend on the
+     * number of people. With gzip=true the response is a people.csv.gz file. Otherwise it is people.csv,
+     * compressed on the fly with Content-Encoding: gzip if the client accepts it.
+     *
+     * @param gzip Whether to download a gzip file. Defaults to false.
+     * @param acceptEncoding The encodings accepted by the client.
+     * @param response The response the CSV is written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/export")
+    public void exportCsv(@RequestParam(defaultValue = "false") boolean gzip,
+                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                          HttpServletResponse response) throws IOException {
+        boolean compress = gzip || (acceptEncoding != null && acceptEncoding.contains("gzip"));
+
+        if (gzip) {
+            response.setContentType("application/gzip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"people.csv.gz\"");
+        } else {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"people.csv\"");
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (compress) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        OutputStream out = response.getOutputStream();
+        GZIPOutputStream gzipOut = compress ? new GZIPOutputStream(out, STREAM_BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+
+        personService.exportPeopleCsv(writer);
+        writer.flush();
+        if (gzipOut != null) gzipOut.finish();
+    }
+
+    /**
+     * Import people from CSV sent as the request body.
+     *
+     * The body is parsed while it is received, so memory use does not depend on the size of the file.
+     * A body sent with Content-Encoding: gzip is decompressed on the fly.
+     *
+     * @param request The request with the CSV body.
+     * @return The numbers of accepted and rejected rows and the reasons of the first rejections.
+     * @throws IOException if the body cannot be read.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain", "application/octet-stream"})
+    public ImportResult importCsv(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null && contentEncoding.contains("gzip")) in = new GZIPInputStream(in, STREAM_BUFFER_SIZE);
+
+        return peopleImportService.importPeopleCsv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE));
+    }
+
+    /**
+     * Update many people at once.
+     *
+     * The request either lists the changed fields of every person by ID, {"updates": [{"id": 1, "logoId": 2}, ...]},
+     * or gives a filter and the fields to set on every matching person,
+     * {"filter": {"logoId": 1}, "set": {"emailDomain": "example.com"}}.
+     *
+     * @param request The bulk update.
+     * @return The number of updated people and, for an update by IDs, the outcome of every row.
+     */
+    @PatchMapping("/bulk")
+    public BulkUpdateResult bulkUpdate(@RequestBody BulkUpdateRequest request) {
+        if (request.getUpdates() != null) {
+            return bulkUpdateService.updatePeople(request.getUpdates());
+        }
+        if (request.getFilter() != null && request.getSet() != null) {
+            return bulkUpdateService.updatePeopleMatching(request.getFilter(), request.getSet());
+        }
+        throw new IllegalArgumentException("The request should contain either updates or a filter with a set.");
+    }
+
+    /**
+     * Report an invalid request.
+     *
+     * @param exc The exception describing the problem.
+     * @return A 400 response with the error message.
+     */
+    @ExceptionHandler({IllegalArgumentException.class, InvalidPageCursorException.class, InvalidSortParameterException.class})
+    public ResponseEntity<Map<String, String>> handleBadRequest(RuntimeException exc) {
+        return ResponseEntity.badRequest().body(Map.of("error", exc.getMessage()));
+    }
+
+    /**
+     * Report a request body that violates the Person constraints.
+     *
+     * @param exc The validation failure.
+     * @return A 400 response with the messages of all violations.
+     */
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidPerson(MethodArgumentNotValidException exc) {
+        String message = exc.getBindingResult().getFieldErrors().stream()
+                .map(FieldError::getDefaultMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+        return ResponseEntity.badRequest().body(Map.of("error", message));
+    }
+
+    /**
+     * Report a person that does not exist.
+     *
+     * @param exc The exception with the missing ID.
+     * @return A 404 response with the error message.
+     */
+    @ExceptionHandler(PersonNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleNotFound(PersonNotFoundException exc) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", exc.getMessage()));
+    }
+}
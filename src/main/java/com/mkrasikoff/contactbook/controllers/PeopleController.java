@@ -1,12 +1,21 @@
 package com.mkrasikoff.contactbook.controllers;
 
+import com.mkrasikoff.contactbook.async.JdbcExecutor;
+import com.mkrasikoff.contactbook.cache.DataVersion;
+import com.mkrasikoff.contactbook.models.PeoplePage;
 import com.mkrasikoff.contactbook.models.Person;
 import com.mkrasikoff.contactbook.services.PersonService;
+import com.mkrasikoff.contactbook.exceptions.InvalidPageCursorException;
 import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -14,76 +23,92 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.ModelAndView;
 import javax.validation.Valid;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * The PeopleController is a controller class that handles HTTP requests related to the Person entity of the application.
  * It includes CRUD (Create, Read, Update, Delete) operations and additional functions such as generating random people,
  * searching people by a query, and deleting all people.
+ *
+ * Handlers that read from the database return a CompletableFuture and run the query on JdbcExecutor, so the worker
+ * thread of the container is released while the database works. Writes stay blocking: the timeout of the executor
+ * does not cancel a task that has started, so a write answered with 503 would still commit, and a client retrying it
+ * would create or delete twice. Generating and deleting all people are also long bulk writes that should not be cut off.
  */
 @Controller
 @RequestMapping("/people")
 public class PeopleController {
 
     private final PersonService personService;
+    private final DataVersion dataVersion;
+    private final JdbcExecutor jdbcExecutor;
 
-    public PeopleController(PersonService personService) {
+    public PeopleController(PersonService personService, DataVersion dataVersion, JdbcExecutor jdbcExecutor) {
         this.personService = personService;
+        this.dataVersion = dataVersion;
+        this.jdbcExecutor = jdbcExecutor;
     }
 
     /**
      * Display a paginated list of all people.
      *
-     * This endpoint handles GET requests to show a page of people. The number of people shown per page
-     * and the page number can be specified with parameters. If these parameters are not provided,
-     * they default to 1 for the page number and 10 for the number of people per page.
+     * This endpoint handles GET requests to show a page of people. Pages are addressed with an opaque cursor
+     * instead of a page number, so deep pages are as cheap as the first one. If no cursor is provided,
+     * the first page is shown. The number of people per page defaults to 10.
+     * The page carries an ETag of the data version and is answered with 304 if the client already has it.
      *
-     * @param page An integer specifying the page number. Defaults to 1 if not provided.
+     * @param cursor An opaque cursor of the page to display. The first page is displayed if not provided.
      * @param size An integer specifying the number of people to display per page. Defaults to 10 if not provided.
      * @param sort A string specifying the attribute by which to sort people. Defaults to 'id' if not provided.
      * @param reverse A boolean specifying the order of sorting (true for desc order, false for asc). Defaults to false.
+     * @param request The current request, checked for If-None-Match.
      * @param model The Model object to bind data to the view.
-     * @return The view to display.
+     * @return The view to display, or an empty view if the page is not modified.
      */
     @GetMapping
-    public String getPeople(@RequestParam(defaultValue = "1") int page,
-                            @RequestParam(defaultValue = "10") int size,
-                            @RequestParam(defaultValue = "id") String sort,
-                            @RequestParam(defaultValue = "false") boolean reverse,
-                            Model model) {
-        List<Person> people = personService.showPeoplePage(page, size, sort, reverse);
-        model.addAttribute("people", people);
-
-        int count = personService.countPeople();
-        int pages = (count + size - 1) / size;
-
-        model.addAttribute("pages", pages);
-        model.addAttribute("page", page);
-        model.addAttribute("sort", sort);
-        model.addAttribute("reverse", reverse);
-
-        return "people/showPeople";
+    public CompletableFuture<ModelAndView> getPeople(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "10") int size,
+                                                     @RequestParam(defaultValue = "id") String sort,
+                                                     @RequestParam(defaultValue = "false") boolean reverse,
+                                                     ServletWebRequest request,
+                                                     Model model) {
+        if (ConditionalGet.notModified(request, dataVersion)) return CompletableFuture.completedFuture(ConditionalGet.notModifiedView());
+        return jdbcExecutor.supply(() -> personService.showPeoplePageByCursor(cursor, size, sort, reverse))
+                .thenApply(peoplePage -> {
+                    addPeoplePage(model, peoplePage, size, sort, reverse);
+                    return new ModelAndView("people/showPeople");
+                })
+                .exceptionally(exc -> recover(exc, InvalidPageCursorException.class, new ModelAndView("redirect:/people")));
     }
 
     /**
      * Display a single person based on his ID.
+     * The page carries an ETag of the version of the person and is answered with 304 if the client already has it.
      *
      * @param id The ID of the person to display.
+     * @param request The current request, checked for If-None-Match.
      * @param model The Model object to bind data to the view.
-     * @return The view to display.
+     * @return The view to display, or an empty view if the page is not modified.
      *
      * If the person with the provided ID does not exist,
      * it catches a PersonNotFoundException and redirects to the people list page.
      */
     @GetMapping("/{id}")
-    public String getPerson(@PathVariable("id") int id, Model model) {
-        try {
-            model.addAttribute("person", personService.showPerson(id));
-        } catch (PersonNotFoundException exc) {
-            return "redirect:/people";
-        }
-        return "people/showPerson";
+    public CompletableFuture<ModelAndView> getPerson(@PathVariable("id") int id, ServletWebRequest request, Model model) {
+        if (ConditionalGet.notModified(request, dataVersion, id)) return CompletableFuture.completedFuture(ConditionalGet.notModifiedView());
+        return jdbcExecutor.supply(() -> personService.showPerson(id))
+                .thenApply(person -> {
+                    model.addAttribute("person", person);
+                    return new ModelAndView("people/showPerson");
+                })
+                .exceptionally(exc -> recover(exc, PersonNotFoundException.class, new ModelAndView("redirect:/people")));
     }
 
     /**
@@ -100,26 +125,27 @@ public class PeopleController {
 
     /**
      * Handle the submission of the form to create a new person.
+     * An id sent with the form is ignored, so the id is always generated by the database.
      *
      * @param person The person to create.
      * @param bindingResult The result of the form binding.
-     * @return The view to display.
+     * @return The view to display, which is the page of the created person.
      */
     @PostMapping
     public String create(@ModelAttribute("person") @Valid Person person, BindingResult bindingResult) {
         if(bindingResult.hasErrors()) return "people/newPerson";
-        personService.savePerson(person);
-        return "redirect:/people";
+        person.setId(0);
+        return "redirect:/people/" + personService.savePerson(person);
     }
 
     /**
      * Display a paginated list of all people for updating.
      *
-     * This endpoint handles GET requests to show a page of people for updating. The number of people shown per page
-     * and the page number can be specified with parameters. If these parameters are not provided,
-     * they default to 1 for the page number and 10 for the number of people per page.
+     * This endpoint handles GET requests to show a page of people for updating. Pages are addressed with an opaque cursor
+     * instead of a page number, so deep pages are as cheap as the first one. If no cursor is provided,
+     * the first page is shown. The number of people per page defaults to 10.
      *
-     * @param page An integer specifying the page number. Defaults to 1 if not provided.
+     * @param cursor An opaque cursor of the page to display. The first page is displayed if not provided.
      * @param size An integer specifying the number of people to display per page. Defaults to 10 if not provided.
      * @param sort A string specifying the attribute by which to sort people. Defaults to 'id' if not provided.
      * @param reverse A boolean specifying the order of sorting (true for desc order, false for asc). Defaults to false.
@@ -127,23 +153,17 @@ public class PeopleController {
      * @return The view to display.
      */
     @GetMapping("/edit")
-    public String editAll(@RequestParam(defaultValue = "1") int page,
-                          @RequestParam(defaultValue = "10") int size,
-                          @RequestParam(defaultValue = "id") String sort,
-                          @RequestParam(defaultValue = "false") boolean reverse,
-                          Model model) {
-        List<Person> people = personService.showPeoplePage(page, size, sort, reverse);
-        model.addAttribute("people", people);
-
-        int count = personService.countPeople();
-        int pages = (count + size - 1) / size;
-
-        model.addAttribute("pages", pages);
-        model.addAttribute("page", page);
-        model.addAttribute("sort", sort);
-        model.addAttribute("reverse", reverse);
-
-        return "people/editPeople";
+    public CompletableFuture<String> editAll(@RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "10") int size,
+                                             @RequestParam(defaultValue = "id") String sort,
+                                             @RequestParam(defaultValue = "false") boolean reverse,
+                                             Model model) {
+        return jdbcExecutor.supply(() -> personService.showPeoplePageByCursor(cursor, size, sort, reverse))
+                .thenApply(peoplePage -> {
+                    addPeoplePage(model, peoplePage, size, sort, reverse);
+                    return "people/editPeople";
+                })
+                .exceptionally(exc -> recover(exc, InvalidPageCursorException.class, "redirect:/people/edit"));
     }
 
     /**
@@ -157,13 +177,13 @@ public class PeopleController {
      * it catches a PersonNotFoundException and redirects to the people list page.
      */
     @GetMapping("/{id}/edit")
-    public String editOne(Model model, @PathVariable("id") int id) {
-        try {
-            model.addAttribute("person", personService.showPerson(id));
-        } catch (PersonNotFoundException exc) {
-            return "redirect:/people";
-        }
-        return "people/editPerson";
+    public CompletableFuture<String> editOne(Model model, @PathVariable("id") int id) {
+        return jdbcExecutor.supply(() -> personService.showPerson(id))
+                .thenApply(person -> {
+                    model.addAttribute("person", person);
+                    return "people/editPerson";
+                })
+                .exceptionally(exc -> recover(exc, PersonNotFoundException.class, "redirect:/people"));
     }
 
     /**
@@ -179,8 +199,8 @@ public class PeopleController {
      */
     @PatchMapping("/{id}")
     public String update(@ModelAttribute("person") @Valid Person person,
-                               BindingResult bindingResult,
-                               @PathVariable("id") int id) {
+                         BindingResult bindingResult,
+                         @PathVariable("id") int id) {
         if(bindingResult.hasErrors()) return "people/editPerson";
         try {
             personService.updatePerson(person, id);
@@ -193,11 +213,11 @@ public class PeopleController {
     /**
      * Display a paginated list of all people for deleting.
      *
-     * This endpoint handles GET requests to show a page of people for deleting. The number of people shown per page
-     * and the page number can be specified with parameters. If these parameters are not provided,
-     * they default to 1 for the page number and 10 for the number of people per page.
+     * This endpoint handles GET requests to show a page of people for deleting. Pages are addressed with an opaque cursor
+     * instead of a page number, so deep pages are as cheap as the first one. If no cursor is provided,
+     * the first page is shown. The number of people per page defaults to 10.
      *
-     * @param page An integer specifying the page number. Defaults to 1 if not provided.
+     * @param cursor An opaque cursor of the page to display. The first page is displayed if not provided.
      * @param size An integer specifying the number of people to display per page. Defaults to 10 if not provided.
      * @param sort A string specifying the attribute by which to sort people. Defaults to 'id' if not provided.
      * @param reverse A boolean specifying the order of sorting (true for desc order, false for asc). Defaults to false.
@@ -205,23 +225,48 @@ public class PeopleController {
      * @return The view to display.
      */
     @GetMapping("/delete")
-    public String getDeletablePeople(@RequestParam(defaultValue = "1") int page,
-                                     @RequestParam(defaultValue = "10") int size,
-                                     @RequestParam(defaultValue = "id") String sort,
-                                     @RequestParam(defaultValue = "false") boolean reverse,
-                                     Model model) {
-        List<Person> people = personService.showPeoplePage(page, size, sort, reverse);
-        model.addAttribute("people", people);
-
-        int count = personService.countPeople();
-        int pages = (count + size - 1) / size;
+    public CompletableFuture<String> getDeletablePeople(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "10") int size,
+                                                        @RequestParam(defaultValue = "id") String sort,
+                                                        @RequestParam(defaultValue = "false") boolean reverse,
+                                                        Model model) {
+        return jdbcExecutor.supply(() -> personService.showPeoplePageByCursor(cursor, size, sort, reverse))
+                .thenApply(peoplePage -> {
+                    addPeoplePage(model, peoplePage, size, sort, reverse);
+                    return "people/deletePeople";
+                })
+                .exceptionally(exc -> recover(exc, InvalidPageCursorException.class, "redirect:/people/delete"));
+    }
 
-        model.addAttribute("pages", pages);
-        model.addAttribute("page", page);
-        model.addAttribute("sort", sort);
-        model.addAttribute("reverse", reverse);
+    /**
+     * Display the confirmation page for deleting the people selected on the delete page.
+     * All selected people are loaded in one query. If none of them exists, it redirects to the delete page.
+     *
+     * @param ids The IDs of the selected people.
+     * @param model The Model object to bind data to the view.
+     * @return The view to display.
+     */
+    @GetMapping("/delete/confirm")
+    public CompletableFuture<String> confirmDeleteSelected(@RequestParam(name = "ids", required = false) List<Integer> ids, Model model) {
+        if (ids == null) return CompletableFuture.completedFuture("redirect:/people/delete");
+        return jdbcExecutor.supply(() -> personService.showPeopleByIds(ids))
+                .thenApply(people -> {
+                    if (people.isEmpty()) return "redirect:/people/delete";
+                    model.addAttribute("people", people);
+                    return "people/deleteSelectedConfirm";
+                });
+    }
 
-        return "people/deletePeople";
+    /**
+     * Handle the confirmation to delete the selected people.
+     *
+     * @param ids The IDs of the people to delete.
+     * @return The view to display.
+     */
+    @DeleteMapping("/selected")
+    public String deleteSelected(@RequestParam(name = "ids", required = false) List<Integer> ids) {
+        if (ids != null) personService.deletePeople(ids);
+        return "redirect:/people/delete";
     }
 
     /**
@@ -234,13 +279,13 @@ public class PeopleController {
      * it catches a PersonNotFoundException and redirects to the people list page.
      */
     @GetMapping("/{id}/delete")
-    public String getDeletablePerson(Model model, @PathVariable("id") int id) {
-        try {
-            model.addAttribute("person",personService.showPerson(id));
-        } catch (PersonNotFoundException exc) {
-            return "redirect:/people";
-        }
-        return "people/deletePersonConfirm";
+    public CompletableFuture<String> getDeletablePerson(Model model, @PathVariable("id") int id) {
+        return jdbcExecutor.supply(() -> personService.showPerson(id))
+                .thenApply(person -> {
+                    model.addAttribute("person", person);
+                    return "people/deletePersonConfirm";
+                })
+                .exceptionally(exc -> recover(exc, PersonNotFoundException.class, "redirect:/people"));
     }
 
     /**
@@ -264,38 +309,50 @@ public class PeopleController {
 
     /**
      * Display people based on a search query.
+     * The page carries an ETag of the data version and is answered with 304 if the client already has it.
      *
      * @param query The search query.
      * @param mode A string specifying the mode (show / edit / delete). Defaults to show if not provided.
+     * @param request The current request, checked for If-None-Match.
      * @param model The Model object to bind data to the view.
-     * @return The view to display.
+     * @return The view to display, or an empty view if the page is not modified.
      */
     @GetMapping("/search")
-    public String search(@RequestParam String query,
-                         @RequestParam(defaultValue = "show") String mode,
-                         Model model) {
-        List<Person> persons = personService.search(query);
-        model.addAttribute("people", persons);
+    public CompletableFuture<ModelAndView> search(@RequestParam String query,
+                                                  @RequestParam(defaultValue = "show") String mode,
+                                                  ServletWebRequest request,
+                                                  Model model) {
+        if (ConditionalGet.notModified(request, dataVersion)) return CompletableFuture.completedFuture(ConditionalGet.notModifiedView());
+        return jdbcExecutor.supply(() -> personService.search(query))
+                .thenApply(persons -> {
+                    model.addAttribute("people", persons);
 
-        if(mode.equals("edit")) {
-            return "people/editPeople";
-        }
-        else if(mode.equals("delete")) {
-            return "people/deletePeople";
-        }
-        else {
-            return "people/showPeople";
-        }
+                    if(mode.equals("edit")) {
+                        return new ModelAndView("people/editPeople");
+                    }
+                    else if(mode.equals("delete")) {
+                        return new ModelAndView("people/deletePeople");
+                    }
+                    else {
+                        return new ModelAndView("people/showPeople");
+                    }
+                });
     }
 
     /**
      * Generate a list of random people.
+     * If the count is out of range, it redirects back to the page for creating a person.
      *
+     * @param count The number of people to generate.
      * @return The view to display.
      */
     @PostMapping("/generate")
-    public String generateRandomPeople() {
-        personService.createRandomPeople();
+    public String generateRandomPeople(@RequestParam(defaultValue = "10") int count) {
+        try {
+            personService.createRandomPeople(count);
+        } catch (IllegalArgumentException exc) {
+            return "redirect:/people/create";
+        }
         return "redirect:/people";
     }
 
@@ -319,4 +376,54 @@ public class PeopleController {
         personService.deleteAllPeople();
         return "redirect:/people";
     }
+
+    /**
+     * Answer a request whose database work was rejected because too many are waiting, or did not finish in time.
+     * Only reads run on JdbcExecutor, so retrying them is safe.
+     *
+     * @param exc The RejectedExecutionException or TimeoutException of JdbcExecutor.
+     * @return A 503 response asking the client to retry shortly.
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    public ResponseEntity<String> handleBusy(Exception exc) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.TEXT_PLAIN)
+                .body("The contact book is busy, please try again in a moment.");
+    }
+
+    /**
+     * Turn the expected exception of an asynchronous handler into its fallback result.
+     * Any other exception is rethrown and handled as if the handler had thrown it.
+     *
+     * @param exc The exception the future completed with, possibly wrapped in a CompletionException.
+     * @param expected The type of exception that has a fallback.
+     * @param fallback The result to use for the expected exception.
+     * @return The fallback.
+     */
+    private static <T> T recover(Throwable exc, Class<? extends Throwable> expected, T fallback) {
+        Throwable cause = exc instanceof CompletionException && exc.getCause() != null ? exc.getCause() : exc;
+        if (expected.isInstance(cause)) return fallback;
+        throw exc instanceof CompletionException ? (CompletionException) exc : new CompletionException(cause);
+    }
+
+    /**
+     * Bind a page of people to the model of one of the list views.
+     *
+     * @param model The Model object to bind data to the view.
+     * @param peoplePage The page of people with its total and cursors.
+     * @param size The number of people per page.
+     * @param sort The attribute by which people are sorted.
+     * @param reverse The order of sorting.
+     */
+    private void addPeoplePage(Model model, PeoplePage peoplePage, int size, String sort, boolean reverse) {
+        model.addAttribute("people", peoplePage.getPeople());
+        model.addAttribute("pages", peoplePage.getPages());
+        model.addAttribute("page", peoplePage.getPage());
+        model.addAttribute("size", size);
+        model.addAttribute("sort", sort);
+        model.addAttribute("reverse", reverse);
+        model.addAttribute("previousCursor", peoplePage.getPreviousCursor());
+        model.addAttribute("nextCursor", peoplePage.getNextCursor());
+    }
 }
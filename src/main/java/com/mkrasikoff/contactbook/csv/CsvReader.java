@@ -0,0 +1,127 @@
+package com.mkrasikoff.contactbook.csv;
+
+import com.mkrasikoff.contactbook.exceptions.CsvFormatException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This reader parses CSV (RFC 4180) one row at a time: fields are separated by commas, rows end with CRLF, LF or CR,
+ * and a quoted field may contain commas, line breaks and doubled quotes.
+ *
+ * Only the current row is held in memory, and a row longer than the limit fails with a CsvFormatException,
+ * so a missing closing quote cannot make the reader swallow the rest of the input.
+ * The reader does not buffer, wrap the source in a BufferedReader.
+ */
+public final class CsvReader {
+
+    /**
+     * The default limit on the number of characters in one row.
+     */
+    public static final int DEFAULT_MAX_ROW_LENGTH = 64 * 1024;
+
+    private static final int NONE = -2;
+
+    private final Reader in;
+    private final int maxRowLength;
+    private long line = 1;
+    private long rowLine;
+    private int pushedBack = NONE;
+
+    /**
+     * Constructs a new CsvReader with the default row length limit.
+     * @param in the reader the rows are read from.
+     */
+    public CsvReader(Reader in) {
+        this(in, DEFAULT_MAX_ROW_LENGTH);
+    }
+
+    /**
+     * Constructs a new CsvReader.
+     * @param in the reader the rows are read from.
+     * @param maxRowLength the largest number of characters in one row.
+     */
+    public CsvReader(Reader in, int maxRowLength) {
+        this.in = in;
+        this.maxRowLength = maxRowLength;
+    }
+
+    /**
+     * Reads the next row.
+     * @return the fields of the row, or null at the end of the input.
+     * @throws IOException if the input cannot be read.
+     * @throws CsvFormatException if a quoted field is not closed or the row is too long.
+     */
+    public List<String> readRow() throws IOException {
+        int c = read();
+        if (c == -1) return null;
+
+        rowLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+        int rowLength = 0;
+
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new CsvFormatException("Unclosed quote in the row at line " + rowLine + ".");
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') pushedBack = next;
+                }
+                if (c != -1) line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+
+            if (++rowLength > maxRowLength) {
+                throw new CsvFormatException("The row at line " + rowLine + " is longer than " + maxRowLength + " characters.");
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Returns the line the last row read started at, counting from 1.
+     * @return the line of the last row.
+     */
+    public long getRowLine() {
+        return rowLine;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,66 @@
+package com.mkrasikoff.contactbook.csv;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * This writer formats rows as CSV (RFC 4180): fields are separated by commas, rows end with CRLF,
+ * and a field containing a comma, a quote or a line break is quoted with its quotes doubled.
+ * A null field is written as an empty field.
+ *
+ * The writer does not buffer, wrap the target in a BufferedWriter when writing many rows.
+ */
+public final class CsvWriter implements Flushable {
+
+    private final Writer out;
+
+    /**
+     * Constructs a new CsvWriter.
+     * @param out the writer the rows are written to.
+     */
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one row.
+     * @param fields the fields of the row.
+     * @throws IOException if the row cannot be written.
+     */
+    public void writeRow(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            if (fields[i] != null) writeField(fields[i].toString());
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeField(String field) throws IOException {
+        if (!needsQuotes(field)) {
+            out.write(field);
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,3 @@
+package com.mkrasikoff.contactbook.exceptions
+
+class CsvFormatException(message: String): RuntimeException(message)
\ No newline at end of file
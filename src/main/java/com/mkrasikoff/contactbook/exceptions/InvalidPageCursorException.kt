@@ -0,0 +1,3 @@
+package com.mkrasikoff.contactbook.exceptions
+
+class InvalidPageCursorException(message: String): RuntimeException(message)
\ No newline at end of file
@@ -0,0 +1,3 @@
+package com.mkrasikoff.contactbook.exceptions
+
+class MigrationFailedException @JvmOverloads constructor(message: String, cause: Throwable? = null): RuntimeException(message, cause)
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.mkrasikoff.contactbook.generate;
+
+import com.github.javafaker.service.FakeValuesService;
+import com.github.javafaker.service.RandomService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class holds the first names and last names that generated people are made of.
+ *
+ * The names are read once from the English data bundled with the Faker library, which otherwise parses
+ * and resolves an expression for every generated value. The pools are immutable, so they can be shared
+ * by any number of threads.
+ */
+public final class NamePools {
+
+    private static final NamePools ENGLISH = fromFaker(Locale.ENGLISH);
+
+    private final String[] firstNames;
+    private final String[] lastNames;
+
+    /**
+     * Constructs new NamePools.
+     * @param firstNames the first names, not empty.
+     * @param lastNames the last names, not empty.
+     * @throws IllegalArgumentException if a pool is empty.
+     */
+    public NamePools(List<String> firstNames, List<String> lastNames) {
+        if (firstNames.isEmpty() || lastNames.isEmpty()) {
+            throw new IllegalArgumentException("The name pools should not be empty");
+        }
+        this.firstNames = firstNames.toArray(new String[0]);
+        this.lastNames = lastNames.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the shared pools of English names.
+     * @return the pools.
+     */
+    public static NamePools english() {
+        return ENGLISH;
+    }
+
+    /**
+     * Returns the first name at the given position, wrapping around the pool.
+     * @param index any non-negative number, usually a random one.
+     * @return the first name.
+     */
+    public String firstName(int index) {
+        return firstNames[index % firstNames.length];
+    }
+
+    /**
+     * Returns the last name at the given position, wrapping around the pool.
+     * @param index any non-negative number, usually a random one.
+     * @return the last name.
+     */
+    public String lastName(int index) {
+        return lastNames[index % lastNames.length];
+    }
+
+    /**
+     * Returns the number of first names.
+     * @return the size of the pool.
+     */
+    public int firstNameCount() {
+        return firstNames.length;
+    }
+
+    /**
+     * Returns the number of last names.
+     * @return the size of the pool.
+     */
+    public int lastNameCount() {
+        return lastNames.length;
+    }
+
+    private static NamePools fromFaker(Locale locale) {
+        FakeValuesService values = new FakeValuesService(locale, new RandomService());
+        List<String> firstNames = new ArrayList<>();
+        firstNames.addAll(fetchList(values, "name.male_first_name"));
+        firstNames.addAll(fetchList(values, "name.female_first_name"));
+        return new NamePools(firstNames, fetchList(values, "name.last_name"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> fetchList(FakeValuesService values, String key) {
+        Object list = values.fetchObject(key);
+        return list instanceof List ? (List<String>) list : Collections.emptyList();
+    }
+}
@@ -0,0 +1,157 @@
+package com.mkrasikoff.contactbook.generate;
+
+import com.mkrasikoff.contactbook.models.Person;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This class generates large numbers of random people quickly and reproducibly.
+ *
+ * Every person is derived only from the seed and its index in the dataset: the index selects its own
+ * SplittableRandom stream, seeded by a mix of the seed and the index so neighbouring streams are unrelated,
+ * which picks a first name, a last name and a logo from the shared NamePools.
+ * So nothing is shared between threads except the immutable pools, and the same seed gives the same people
+ * whatever the number of threads or the chunk size.
+ *
+ * {@link #generate(long, int, int, Consumer)} splits the dataset into chunks and hands every chunk to the sink
+ * on the thread that generated it, so the sink (usually a batch insert) runs in parallel too and at most
+ * one chunk per thread is held in memory.
+ */
+public final class PeopleGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int LOGO_COUNT = 4;
+
+    private final NamePools namePools;
+    private final long seed;
+
+    /**
+     * Constructs a new PeopleGenerator.
+     * @param namePools the names the people are made of.
+     * @param seed the seed of the dataset.
+     */
+    public PeopleGenerator(NamePools namePools, long seed) {
+        this.namePools = namePools;
+        this.seed = seed;
+    }
+
+    /**
+     * Generates the person at the given index of the dataset.
+     * The email is made of the lower-case name and surname, and the logoId is between 1 and 4 (inclusive).
+     * @param index the index of the person, from 0.
+     * @return the generated Person object, without an ID.
+     */
+    public Person generate(long index) {
+        SplittableRandom random = new SplittableRandom(mix64(seed + index * GOLDEN_GAMMA));
+        String name = namePools.firstName(random.nextInt(namePools.firstNameCount()));
+        String surname = namePools.lastName(random.nextInt(namePools.lastNameCount()));
+        String email = name.toLowerCase(Locale.ROOT) + "." + surname.toLowerCase(Locale.ROOT) + "@email.com";
+        int logoId = random.nextInt(LOGO_COUNT) + 1;
+
+        return new Person(name, surname, email, logoId);
+    }
+
+    /**
+     * Generates the people with the given range of indexes.
+     * @param from the index of the first person.
+     * @param count the number of people.
+     * @return the generated Person objects, in index order.
+     */
+    public List<Person> generate(long from, int count) {
+        List<Person> people = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            people.add(generate(from + i));
+        }
+        return people;
+    }
+
+    /**
+     * Generates the given number of people on several threads and hands them to the sink in chunks.
+     * Chunks are handed over in no particular order. If the sink fails, no further chunks are started
+     * and the first failure is thrown once the running chunks are done.
+     * @param count the number of people.
+     * @param chunkSize the maximum number of people in one chunk.
+     * @param threads the number of threads that generate chunks and call the sink.
+     * @param sink the receiver of the chunks, called concurrently.
+     * @return the number of people handed to the sink.
+     * @throws IllegalArgumentException if the count is negative or the chunk size or thread count is not positive.
+     * @throws RuntimeException the first exception thrown by the sink.
+     */
+    public long generate(long count, int chunkSize, int threads, Consumer<List<Person>> sink) {
+        if (count < 0 || chunkSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("The count should not be negative, and the chunk size and threads should be positive");
+        }
+
+        long chunks = (count + chunkSize - 1) / chunkSize;
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong generated = new AtomicLong();
+        int workers = (int) Math.min(threads, Math.max(chunks, 1));
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "people-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    long chunk;
+                    while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                        long from = chunk * chunkSize;
+                        List<Person> people = generate(from, (int) Math.min(chunkSize, count - from));
+                        try {
+                            sink.accept(people);
+                        } catch (RuntimeException exc) {
+                            nextChunk.set(chunks);
+                            throw exc;
+                        }
+                        generated.addAndGet(people.size());
+                    }
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return generated.get();
+    }
+
+    /**
+     * Scrambles the bits of the given value, as SplitMix64 does for its output. The seeds of neighbouring
+     * indexes are one gamma apart, which is also the step of SplittableRandom, so without mixing the draws
+     * of one person would repeat the draws of the next one.
+     */
+    private static long mix64(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException exc) {
+                if (failure == null) {
+                    failure = exc.getCause() instanceof RuntimeException
+                            ? (RuntimeException) exc.getCause() : new IllegalStateException(exc.getCause());
+                }
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while generating people", exc);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mkrasikoff.contactbook.generate;
+
+import com.mkrasikoff.contactbook.migrations.SchemaMigrator;
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This command fills the database with generated people, e.g. 10 million for a load test:
+ * mvn -P seed-database process-classes -Dseed.count=10000000
+ *
+ * The database settings are read from application.properties and can be overridden with system properties,
+ * like in the application. The schema is migrated first, then the people are generated by PeopleGenerator
+ * and inserted through the batch insert of JdbcPersonRepository on seed.threads threads, each with its own
+ * connection. The people are added to the existing rows; a running application picks them up after a restart.
+ *
+ * System properties: seed.count (default 10000000), seed.random-seed (default 42), seed.threads
+ * (default the number of processors) and seed.chunk-size (default 10000, people per transaction).
+ */
+public final class SeedDatabase {
+
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+
+    private SeedDatabase() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Properties properties = loadProperties();
+        long count = Long.parseLong(properties.getProperty("seed.count", "10000000"));
+        long seed = Long.parseLong(properties.getProperty("seed.random-seed", "42"));
+        int threads = Integer.parseInt(properties.getProperty("seed.threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        int chunkSize = Integer.parseInt(properties.getProperty("seed.chunk-size", "10000"));
+
+        try (HikariDataSource dataSource = createDataSource(properties, threads)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            JdbcPersonRepository personRepository = new JdbcPersonRepository(jdbcTemplate, transactionTemplate,
+                    Integer.parseInt(properties.getProperty("db.batch-size", "1000")),
+                    Integer.parseInt(properties.getProperty("db.stream-fetch-size", "1000")));
+
+            new SchemaMigrator(jdbcTemplate).migrate();
+
+            PeopleGenerator generator = new PeopleGenerator(NamePools.english(), seed);
+            AtomicLong inserted = new AtomicLong();
+            long start = System.nanoTime();
+
+            generator.generate(count, chunkSize, threads, people -> {
+                personRepository.saveAll(people);
+                long before = inserted.getAndAdd(people.size());
+                if ((before + people.size()) / PROGRESS_INTERVAL > before / PROGRESS_INTERVAL) {
+                    System.out.println("Inserted " + (before + people.size()) + " of " + count + " people");
+                }
+            });
+
+            long seconds = Math.max(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), 1);
+            System.out.println("Inserted " + inserted.get() + " people in " + seconds + " s ("
+                    + inserted.get() / seconds + " people/s) with seed " + seed);
+        }
+    }
+
+    private static Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = SeedDatabase.class.getResourceAsStream("/application.properties")) {
+            if (input != null) properties.load(input);
+        }
+        properties.putAll(System.getProperties());
+        return properties;
+    }
+
+    private static HikariDataSource createDataSource(Properties properties, int threads) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(properties.getProperty("db.driver-class-name"));
+        config.setJdbcUrl(properties.getProperty("db.url"));
+        config.setUsername(properties.getProperty("db.username"));
+        config.setPassword(properties.getProperty("db.password"));
+        config.setPoolName("seed-database-pool");
+        config.setMaximumPoolSize(threads);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,77 @@
+package com.mkrasikoff.contactbook.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mkrasikoff.contactbook.models.PeoplePage;
+import com.mkrasikoff.contactbook.models.Person;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * This writer serializes lists of people as JSON with a streaming JsonGenerator, one Person at a time,
+ * so no intermediate tree or string of the whole response is built.
+ *
+ * A list is written as an object with a "people" array followed by its metadata. The email is left out
+ * of people that were loaded without it, such as the rows of a list page.
+ */
+public final class PeopleJsonWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private PeopleJsonWriter() {
+    }
+
+    /**
+     * Writes a page of people with its cursors, total and page count.
+     * @param page the page to write.
+     * @param out the stream the UTF-8 JSON is written to, left open.
+     * @throws IOException if the page cannot be written.
+     */
+    public static void writePage(PeoplePage page, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            writePeople(generator, page.getPeople());
+            generator.writeNumberField("page", page.getPage());
+            generator.writeStringField("previousCursor", page.getPreviousCursor());
+            generator.writeStringField("nextCursor", page.getNextCursor());
+            generator.writeNumberField("total", page.getTotal());
+            generator.writeNumberField("pages", page.getPages());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a list of people with its size as the total.
+     * @param people the people to write.
+     * @param out the stream the UTF-8 JSON is written to, left open.
+     * @throws IOException if the list cannot be written.
+     */
+    public static void writeList(List<Person> people, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            writePeople(generator, people);
+            generator.writeNumberField("total", people.size());
+            generator.writeEndObject();
+        }
+    }
+
+    private static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void writePeople(JsonGenerator generator, List<Person> people) throws IOException {
+        generator.writeArrayFieldStart("people");
+        for (Person person : people) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", person.getId());
+            generator.writeStringField("name", person.getName());
+            generator.writeStringField("surname", person.getSurname());
+            if (person.getEmail() != null) generator.writeStringField("email", person.getEmail());
+            if (person.getLogoId() != null) generator.writeNumberField("logoId", person.getLogoId());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+}
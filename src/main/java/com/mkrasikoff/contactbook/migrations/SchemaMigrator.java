@@ -0,0 +1,142 @@
+package com.mkrasikoff.contactbook.migrations;
+
+import com.mkrasikoff.contactbook.exceptions.MigrationFailedException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This component brings the database schema up to date by running versioned SQL migrations.
+ *
+ * Migrations are the scripts on the classpath under db/migration named V&lt;version&gt;__&lt;description&gt;.sql.
+ * They are run in version order, each at most once, and every applied version is recorded in the
+ * 'schema_version' table. The scripts use SQL understood by both MySQL and H2.
+ *
+ * MySQL commits DDL implicitly, so a script is not rolled back if one of its statements fails;
+ * the version is recorded only after the whole script succeeded.
+ */
+@Component
+public class SchemaMigrator {
+
+    private static final String MIGRATIONS_LOCATION = "classpath*:db/migration/V*__*.sql";
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String QUERY_CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version " +
+            "(version INT PRIMARY KEY, " +
+            "description VARCHAR(100) NOT NULL, " +
+            "installed_on TIMESTAMP NOT NULL, " +
+            "execution_ms BIGINT NOT NULL)";
+    private static final String QUERY_APPLIED_VERSIONS = "SELECT version FROM schema_version";
+    private static final String QUERY_RECORD_VERSION = "INSERT INTO schema_version(version, description, installed_on, execution_ms) " +
+            "VALUES(?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+
+    /**
+     * Constructs a new SchemaMigrator.
+     * @param jdbcTemplate the JdbcTemplate to run the migrations with.
+     */
+    public SchemaMigrator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Runs the migrations that have not been applied yet.
+     * @return the versions applied by this call, in the order they were run.
+     * @throws MigrationFailedException if a migration script cannot be read or fails.
+     */
+    public synchronized List<Integer> migrate() {
+        jdbcTemplate.execute(QUERY_CREATE_VERSION_TABLE);
+        Set<Integer> appliedVersions = new HashSet<>(jdbcTemplate.queryForList(QUERY_APPLIED_VERSIONS, Integer.class));
+
+        List<Integer> applied = new ArrayList<>();
+        for (Migration migration : findMigrations()) {
+            if (appliedVersions.contains(migration.version)) continue;
+
+            apply(migration);
+            applied.add(migration.version);
+        }
+        return applied;
+    }
+
+    /**
+     * Returns the versions recorded in the 'schema_version' table.
+     * @return the applied versions in ascending order.
+     */
+    public List<Integer> appliedVersions() {
+        jdbcTemplate.execute(QUERY_CREATE_VERSION_TABLE);
+        return jdbcTemplate.queryForList(QUERY_APPLIED_VERSIONS + " ORDER BY version", Integer.class);
+    }
+
+    private void apply(Migration migration) {
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.resource, StandardCharsets.UTF_8));
+                return null;
+            });
+        } catch (RuntimeException exc) {
+            throw new MigrationFailedException("Migration V" + migration.version + " (" + migration.description + ") failed.", exc);
+        }
+        long executionMs = (System.nanoTime() - start) / 1_000_000;
+
+        jdbcTemplate.update(QUERY_RECORD_VERSION, migration.version, migration.description,
+                new Timestamp(System.currentTimeMillis()), executionMs);
+    }
+
+    private List<Migration> findMigrations() {
+        Resource[] resources;
+        try {
+            resources = resourceResolver.getResources(MIGRATIONS_LOCATION);
+        } catch (IOException exc) {
+            throw new MigrationFailedException("Cannot read migrations from " + MIGRATIONS_LOCATION, exc);
+        }
+
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource resource : resources) {
+            Matcher matcher = MIGRATION_NAME.matcher(String.valueOf(resource.getFilename()));
+            if (!matcher.matches()) continue;
+
+            int version = Integer.parseInt(matcher.group(1));
+            String description = matcher.group(2).replace('_', ' ');
+            migrations.add(new Migration(version, description, resource));
+        }
+        migrations.sort(Comparator.comparingInt(migration -> migration.version));
+
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version == migrations.get(i - 1).version) {
+                throw new MigrationFailedException("Duplicate migration version V" + migrations.get(i).version + ": "
+                        + migrations.get(i).resource.getDescription());
+            }
+        }
+        return migrations;
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final Resource resource;
+
+        private Migration(int version, String description, Resource resource) {
+            this.version = version;
+            this.description = description;
+            this.resource = resource;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.mkrasikoff.contactbook.models
+
+/**
+ * A bulk update of people, either a list of [updates] by ID or a [filter] together with the [set] assignment
+ * applied to every matching person.
+ */
+data class BulkUpdateRequest(
+        var updates: List<PersonPatch>? = null,
+        var filter: PersonFilter? = null,
+        var set: PersonPatch? = null
+)
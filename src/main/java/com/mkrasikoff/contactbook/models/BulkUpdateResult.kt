@@ -0,0 +1,24 @@
+package com.mkrasikoff.contactbook.models
+
+/**
+ * The outcome of a bulk update. [results] holds one [RowOutcome] per requested ID for an update by IDs,
+ * and is empty for an update by filter, where only [updated] is reported.
+ */
+data class BulkUpdateResult(
+        val updated: Int,
+        val notFound: Int,
+        val invalid: Int,
+        val results: List<RowOutcome>
+) {
+
+    /**
+     * The outcome of the update of one person.
+     */
+    data class RowOutcome(val id: Int, val status: Status, val message: String? = null)
+
+    enum class Status {
+        UPDATED,
+        NOT_FOUND,
+        INVALID
+    }
+}
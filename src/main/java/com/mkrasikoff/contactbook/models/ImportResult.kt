@@ -0,0 +1,19 @@
+package com.mkrasikoff.contactbook.models
+
+/**
+ * The summary of a CSV import. [rejections] lists the first rejected rows with their line and reason,
+ * [rejected] counts all of them. [completed] is false if the file could not be read to the end,
+ * in which case the rows accepted before the error are still saved.
+ */
+data class ImportResult(
+        val accepted: Int,
+        val rejected: Int,
+        val completed: Boolean,
+        val rejections: List<Rejection>
+) {
+
+    /**
+     * A rejected row and the reason it was rejected.
+     */
+    data class Rejection(val line: Long, val message: String)
+}
@@ -0,0 +1,64 @@
+package com.mkrasikoff.contactbook.models
+
+import com.mkrasikoff.contactbook.exceptions.InvalidPageCursorException
+import java.nio.charset.StandardCharsets
+import java.util.Base64
+
+/**
+ * Position of a page in a sorted list of people, used for keyset (seek) pagination.
+ *
+ * A cursor remembers the sort key of the row at the edge of a page (the last row for a "next" cursor,
+ * the first row for a "previous" cursor) together with its id, which is used as a tiebreaker.
+ * It is handed to clients as an opaque URL-safe token, see [encode] and [decode].
+ */
+data class PageCursor(
+        val sort: String,
+        val reverse: Boolean,
+        val page: Int,
+        val lastValue: String?,
+        val lastId: Int,
+        val backward: Boolean
+) {
+
+    fun encode(): String {
+        val raw = listOf(
+                VERSION,
+                sort,
+                if (reverse) "1" else "0",
+                page.toString(),
+                if (backward) "b" else "f",
+                lastId.toString(),
+                if (lastValue == null) "0" else "1",
+                lastValue ?: ""
+        ).joinToString(SEPARATOR)
+
+        return ENCODER.encodeToString(raw.toByteArray(StandardCharsets.UTF_8))
+    }
+
+    companion object {
+        private const val VERSION = "v1"
+        private const val SEPARATOR = "|"
+        private const val FIELDS = 8
+        private val ENCODER = Base64.getUrlEncoder().withoutPadding()
+        private val DECODER = Base64.getUrlDecoder()
+
+        @JvmStatic
+        fun decode(token: String): PageCursor {
+            try {
+                val parts = String(DECODER.decode(token), StandardCharsets.UTF_8).split(SEPARATOR, limit = FIELDS)
+                if (parts.size != FIELDS || parts[0] != VERSION) throw IllegalArgumentException()
+
+                return PageCursor(
+                        sort = parts[1],
+                        reverse = parts[2] == "1",
+                        page = parts[3].toInt(),
+                        backward = parts[4] == "b",
+                        lastId = parts[5].toInt(),
+                        lastValue = if (parts[6] == "1") parts[7] else null
+                )
+            } catch (exc: IllegalArgumentException) {
+                throw InvalidPageCursorException("Invalid page cursor: $token")
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.mkrasikoff.contactbook.models
+
+/**
+ * One page of a sorted list of people.
+ * [previousCursor] and [nextCursor] are opaque tokens for the neighbouring pages, or null if there is no such page.
+ * [total] is the number of people in the whole list and [pages] the number of pages of this size,
+ * both are [UNKNOWN] if the total was not requested.
+ */
+data class PeoplePage @JvmOverloads constructor(
+        val people: List<Person>,
+        val page: Int,
+        val previousCursor: String?,
+        val nextCursor: String?,
+        val total: Int = UNKNOWN,
+        val pages: Int = UNKNOWN
+) {
+
+    /**
+     * Returns a copy of this page with the given total and the page count derived from it.
+     */
+    fun withTotal(total: Int, size: Int): PeoplePage = copy(total = total, pages = pagesOf(total, size))
+
+    companion object {
+        const val UNKNOWN = -1
+
+        @JvmStatic
+        fun pagesOf(total: Int, size: Int): Int = (total + size - 1) / size
+    }
+}
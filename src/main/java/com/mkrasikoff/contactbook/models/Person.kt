@@ -17,6 +17,7 @@ data class Person(
 
         @field:NotEmpty(message = "Email shouldn't be empty")
         @field:Email(message = "Email should be valid")
+        @field:Size(max = 50, message = "Email should be at most 50 characters")
         var email: String? = null,
 
         var logoId: Int? = 1
@@ -0,0 +1,17 @@
+package com.mkrasikoff.contactbook.models
+
+/**
+ * Selects the people a bulk update by filter applies to. Every criterion that is not null has to match.
+ * [emailDomain] matches the part of the email after '@'.
+ */
+data class PersonFilter(
+        var ids: List<Int>? = null,
+        var logoId: Int? = null,
+        var emailDomain: String? = null
+) {
+
+    /**
+     * Checks whether no criterion is set, which would select every person.
+     */
+    fun isEmpty(): Boolean = ids == null && logoId == null && emailDomain == null
+}
@@ -0,0 +1,25 @@
+package com.mkrasikoff.contactbook.models
+
+/**
+ * The changed fields of one Person in a bulk update. Fields that are null are left unchanged.
+ * [emailDomain] replaces the part of the email after '@' and can be used instead of [email].
+ */
+data class PersonPatch(
+        var id: Int = 0,
+        var name: String? = null,
+        var surname: String? = null,
+        var email: String? = null,
+        var logoId: Int? = null,
+        var emailDomain: String? = null
+) {
+
+    /**
+     * Checks whether the patch changes the name or the surname.
+     */
+    fun changesName(): Boolean = name != null || surname != null
+
+    /**
+     * Checks whether the patch changes anything at all.
+     */
+    fun isEmpty(): Boolean = !changesName() && email == null && logoId == null && emailDomain == null
+}
@@ -0,0 +1,43 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * This component checks whether the database answers.
+ * It borrows a connection from the pool and validates it with the driver, so no query is parsed or planned.
+ */
+@Component
+public class DatabaseHealth {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int timeoutSeconds;
+
+    /**
+     * Constructs a new DatabaseHealth.
+     *
+     * @param jdbcTemplate the JdbcTemplate whose connections are checked
+     * @param timeoutSeconds the time the driver may take to validate the connection, in seconds
+     */
+    public DatabaseHealth(JdbcTemplate jdbcTemplate, @Value("${db.health.timeout-seconds:2}") int timeoutSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Checks whether a connection can be obtained and is valid.
+     *
+     * @return true if the database answered within the timeout
+     */
+    public boolean isUp() {
+        try {
+            Boolean valid = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection.isValid(timeoutSeconds));
+            return Boolean.TRUE.equals(valid);
+        } catch (DataAccessException exc) {
+            return false;
+        }
+    }
+}
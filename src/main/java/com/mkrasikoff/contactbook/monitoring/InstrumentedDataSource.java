@@ -0,0 +1,279 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+
+/**
+ * This DataSource wraps the pooled DataSource and reports every statement executed through it
+ * to StatementMetrics with its SQL, duration, rows and bind values.
+ *
+ * Connections, statements and result sets are JDK proxies of the objects of the driver. An update or a batch
+ * is measured from its execution until it returns, and its rows are the changed rows. A query is measured
+ * by the time spent in the driver: its execution plus every call of next() on its result set, which includes
+ * fetching further rows from the database. The time the application spends between those calls, e.g. writing
+ * a streamed CSV export to a slow client, is not part of it; the whole time the result set stays open is
+ * reported separately as the cursor time of the query. Its rows are the rows read by the application.
+ * unwrap and isWrapperFor look through every proxy, so code that needs the objects of the driver or the pool
+ * still gets them.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final int MAX_LOGGED_BINDS = 20;
+    private static final int MAX_LOGGED_VALUE_LENGTH = 100;
+
+    private final StatementMetrics statementMetrics;
+
+    /**
+     * Constructs a new InstrumentedDataSource.
+     *
+     * @param targetDataSource the DataSource the connections are taken from
+     * @param statementMetrics the metrics the statements are reported to
+     */
+    public InstrumentedDataSource(DataSource targetDataSource, StatementMetrics statementMetrics) {
+        super(targetDataSource);
+        this.statementMetrics = statementMetrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    /**
+     * Closes the target DataSource if it can be closed, e.g. the connection pool.
+     */
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof Closeable) ((Closeable) target).close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exc) {
+            throw exc.getCause();
+        }
+    }
+
+    /**
+     * Answers unwrap and isWrapperFor for a proxy of the given target.
+     * @return the answer, or null if the method is neither.
+     */
+    private static Object unwrap(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (!method.getName().equals("unwrap") && !method.getName().equals("isWrapperFor")) return null;
+
+        Class<?> type = (Class<?>) args[0];
+        if (method.getName().equals("isWrapperFor")) {
+            return type.isInstance(proxy) || type.isInstance(target) || (Boolean) invoke(target, method, args);
+        }
+        if (type.isInstance(proxy)) return proxy;
+        if (type.isInstance(target)) return target;
+        return invoke(target, method, args);
+    }
+
+    private static String formatBinds(Object[] binds) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        int shown = Math.min(binds.length, MAX_LOGGED_BINDS + 1);
+        for (int i = 1; i < shown; i++) {
+            Object value = binds[i];
+            String text = value instanceof String ? "'" + value + "'" : String.valueOf(value);
+            joiner.add(text.length() > MAX_LOGGED_VALUE_LENGTH ? text.substring(0, MAX_LOGGED_VALUE_LENGTH) + "..." : text);
+        }
+        if (binds.length > shown) joiner.add("... " + (binds.length - shown) + " more");
+        return joiner.toString();
+    }
+
+    /**
+     * Wraps the statements created by a connection.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object unwrapped = unwrap(proxy, target, method, args);
+            if (unwrapped != null) return unwrapped;
+
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    return proxy(method.getReturnType(), new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    /**
+     * Collects the bind values of a statement and measures its executions.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private Object[] binds = new Object[1];
+        private int lastBindIndex;
+        private Object[] firstBatchBinds;
+        private int batchSize;
+        private ResultSetHandler openResultSet;
+
+        private StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object unwrapped = unwrap(proxy, target, method, args);
+            if (unwrapped != null) return unwrapped;
+
+            String name = method.getName();
+            if (name.startsWith("execute")) return execute(method, args);
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && method.getDeclaringClass() != Statement.class) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                binds = new Object[1];
+                lastBindIndex = 0;
+            } else if (name.equals("addBatch")) {
+                if (batchSize++ == 0) firstBatchBinds = Arrays.copyOf(binds, lastBindIndex + 1);
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.equals("close")) {
+                closeResultSet();
+            }
+            return InstrumentedDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String statementSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            Supplier<String> description = describeBinds();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = InstrumentedDataSource.invoke(target, method, args);
+            } catch (SQLException exc) {
+                statementMetrics.record(statementSql, System.nanoTime() - start, 0, true, description);
+                batchSize = 0;
+                throw exc;
+            }
+
+            if (result instanceof ResultSet) {
+                long executeNanos = System.nanoTime() - start;
+                closeResultSet();
+                openResultSet = new ResultSetHandler((ResultSet) result, statementSql, start, executeNanos, description);
+                return proxy(ResultSet.class, openResultSet);
+            }
+
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) rows += count > 0 ? count : (count == Statement.SUCCESS_NO_INFO ? 1 : 0);
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) rows += count > 0 ? count : (count == Statement.SUCCESS_NO_INFO ? 1 : 0);
+            } else if (result instanceof Number) {
+                rows = ((Number) result).longValue();
+            } else if (Boolean.FALSE.equals(result)) {
+                rows = Math.max(target.getUpdateCount(), 0);
+            }
+            batchSize = 0;
+            statementMetrics.record(statementSql, System.nanoTime() - start, rows, false, description);
+            return result;
+        }
+
+        private Supplier<String> describeBinds() {
+            int rows = batchSize;
+            Object[] values = rows > 0 ? firstBatchBinds : Arrays.copyOf(binds, lastBindIndex + 1);
+            return rows > 0 ? () -> "first of " + rows + " rows " + formatBinds(values) : () -> formatBinds(values);
+        }
+
+        private void bind(int index, Object value) {
+            if (index >= binds.length) binds = Arrays.copyOf(binds, Math.max(index + 1, binds.length * 2));
+            binds[index] = value;
+            lastBindIndex = Math.max(lastBindIndex, index);
+        }
+
+        private void closeResultSet() {
+            if (openResultSet != null) {
+                openResultSet.finish();
+                openResultSet = null;
+            }
+        }
+    }
+
+    /**
+     * Counts the rows read from a result set and the time spent fetching them, and reports the query
+     * once the result set is closed.
+     */
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final String sql;
+        private final long start;
+        private final Supplier<String> binds;
+        private long driverNanos;
+        private long rows;
+        private boolean finished;
+
+        private ResultSetHandler(ResultSet target, String sql, long start, long executeNanos, Supplier<String> binds) {
+            this.target = target;
+            this.sql = sql;
+            this.start = start;
+            this.driverNanos = executeNanos;
+            this.binds = binds;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object unwrapped = unwrap(proxy, target, method, args);
+            if (unwrapped != null) return unwrapped;
+
+            if (method.getName().equals("next")) {
+                long fetchStart = System.nanoTime();
+                Object result = InstrumentedDataSource.invoke(target, method, args);
+                driverNanos += System.nanoTime() - fetchStart;
+                if (Boolean.TRUE.equals(result)) rows++;
+                return result;
+            }
+
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            if (method.getName().equals("close")) finish();
+            return result;
+        }
+
+        private void finish() {
+            if (finished) return;
+            finished = true;
+            statementMetrics.recordQuery(sql, driverNanos, System.nanoTime() - start, rows, binds);
+        }
+    }
+}
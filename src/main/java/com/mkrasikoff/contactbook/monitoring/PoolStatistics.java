@@ -0,0 +1,114 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This component collects statistics of the database connection pool.
+ * It is plugged into HikariCP as a metrics tracker factory, so the pool reports every connection
+ * acquisition, usage and timeout to it. Gauges (active, idle, waiting) are read from the pool on demand.
+ */
+@Component
+public class PoolStatistics implements MetricsTrackerFactory {
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquisitionNanos = new LongAdder();
+    private final LongAccumulator maxAcquisitionNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder usages = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    /**
+     * Called by HikariCP once the pool is started.
+     *
+     * @param poolName the name of the pool
+     * @param poolStats the live gauges of the pool
+     * @return the tracker that receives pool events
+     */
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new Tracker();
+    }
+
+    /**
+     * Checks whether a pool has been registered with this component.
+     *
+     * @return true if pool gauges are available
+     */
+    public boolean isPoolAvailable() {
+        return poolStats != null;
+    }
+
+    /**
+     * Returns the current statistics of the pool as an ordered map of metric names to values.
+     * Gauges are only present when a pool has been registered.
+     *
+     * @return the pool statistics
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        PoolStats pool = poolStats;
+
+        if (pool != null) {
+            stats.put("pool.connections.active", pool.getActiveConnections());
+            stats.put("pool.connections.idle", pool.getIdleConnections());
+            stats.put("pool.connections.total", pool.getTotalConnections());
+            stats.put("pool.connections.max", pool.getMaxConnections());
+            stats.put("pool.connections.min", pool.getMinConnections());
+            stats.put("pool.threads.waiting", pool.getPendingThreads());
+        }
+
+        long count = acquisitions.sum();
+        stats.put("pool.acquire.count", count);
+        stats.put("pool.acquire.avg.micros", count == 0 ? 0 : acquisitionNanos.sum() / count / 1_000);
+        stats.put("pool.acquire.max.micros", maxAcquisitionNanos.get() / 1_000);
+        stats.put("pool.acquire.timeouts", timeouts.sum());
+
+        long used = usages.sum();
+        stats.put("pool.usage.count", used);
+        stats.put("pool.usage.avg.millis", used == 0 ? 0 : usageMillis.sum() / used);
+        stats.put("pool.connections.created", connectionsCreated.sum());
+
+        return stats;
+    }
+
+    /**
+     * Records the events HikariCP reports for every connection checkout.
+     * Counters are LongAdders so that recording never blocks the pool.
+     */
+    private class Tracker implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            connectionsCreated.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            acquisitionNanos.add(elapsedAcquiredNanos);
+            maxAcquisitionNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usages.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
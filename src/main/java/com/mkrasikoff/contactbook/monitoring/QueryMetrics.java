@@ -0,0 +1,93 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects the calls, errors, returned rows and latencies of named operations.
+ * SpringConfig creates the instance that TimedPersonRepository records the repository methods into,
+ * and StatementMetrics and RequestMetrics each keep their own, so every snapshot lists one kind of operation.
+ *
+ * Latencies are recorded in nanoseconds into HdrHistogram Recorders, which never block the recording thread.
+ * A snapshot moves the values recorded since the previous snapshot into a cumulative histogram,
+ * so the percentiles cover every call since the start of the application with 3 significant digits.
+ */
+public class QueryMetrics {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Records one call of the given operation.
+     *
+     * @param name the name of the operation
+     * @param nanos the time the call took, in nanoseconds
+     * @param rows the number of rows the call returned or changed
+     * @param failed whether the call threw an exception
+     */
+    public void record(String name, long nanos, long rows, boolean failed) {
+        Operation operation = operations.computeIfAbsent(name, key -> new Operation());
+        operation.calls.increment();
+        operation.rows.add(rows);
+        if (failed) operation.errors.increment();
+        operation.recorder.recordValue(Math.max(nanos, 0));
+    }
+
+    /**
+     * Returns the current statistics of every operation as an ordered map of metric names to values,
+     * e.g. repository.findById.calls or repository.findById.latency.p99.micros.
+     *
+     * @param prefix the prefix of the metric names, e.g. repository
+     * @return the statistics, sorted by operation name
+     */
+    public Map<String, Number> snapshot(String prefix) {
+        Map<String, Number> stats = new LinkedHashMap<>();
+
+        new TreeMap<>(operations).forEach((name, operation) -> {
+            Histogram histogram = operation.accumulate();
+            String key = prefix + "." + name;
+
+            stats.put(key + ".calls", operation.calls.sum());
+            stats.put(key + ".errors", operation.errors.sum());
+            stats.put(key + ".rows", operation.rows.sum());
+            stats.put(key + ".latency.mean.micros", Math.round(histogram.getMean() / 1_000));
+            for (double percentile : PERCENTILES) {
+                stats.put(key + ".latency.p" + formatPercentile(percentile) + ".micros",
+                        TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(percentile)));
+            }
+            stats.put(key + ".latency.max.micros", TimeUnit.NANOSECONDS.toMicros(histogram.getMaxValue()));
+        });
+
+        return stats;
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile).replace(".", "");
+    }
+
+    /**
+     * The counters and the latency recorder of one operation.
+     */
+    private static final class Operation {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final Histogram cumulative = new Histogram(SIGNIFICANT_DIGITS);
+        private Histogram interval;
+
+        private synchronized Histogram accumulate() {
+            interval = recorder.getIntervalHistogram(interval);
+            cumulative.add(interval);
+            return cumulative.copy();
+        }
+    }
+}
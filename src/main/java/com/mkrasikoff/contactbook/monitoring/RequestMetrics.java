@@ -0,0 +1,50 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import org.springframework.stereotype.Component;
+import java.util.Map;
+
+/**
+ * This component aggregates the RequestTiming of every finished request by its route, the HTTP method
+ * and the URL pattern of the handler, e.g. GET:/people/{id}.
+ *
+ * The total time of a route is kept under the name of the route, and every part of it under the name
+ * of the route followed by the part: .queue, .service, .db and .render. Every request is recorded
+ * for every part, so the means of the parts add up to at most the mean of the route. The rows of a route
+ * are the JDBC statements its requests ran, and its errors are the requests answered with 5xx
+ * or ended by an exception.
+ */
+@Component
+public class RequestMetrics {
+
+    /**
+     * The route of requests that no handler matched.
+     */
+    static final String UNMATCHED = "unmatched";
+
+    private final QueryMetrics queryMetrics = new QueryMetrics();
+
+    /**
+     * Records one finished request.
+     *
+     * @param route the route of the request
+     * @param timing the timing of the request
+     * @param failed whether the request failed
+     */
+    public void record(String route, RequestTiming timing, boolean failed) {
+        queryMetrics.record(route, timing.getElapsedNanos(), timing.getStatements(), failed);
+        queryMetrics.record(route + ".queue", timing.getQueueNanos(), 0, false);
+        queryMetrics.record(route + ".service", timing.getServiceNanos(), 0, false);
+        queryMetrics.record(route + ".db", timing.getDbNanos(), timing.getStatements(), false);
+        queryMetrics.record(route + ".render", timing.getRenderNanos(), 0, false);
+    }
+
+    /**
+     * Returns the current statistics of every route as an ordered map of metric names to values,
+     * e.g. http.GET:/people/{id}.latency.p99.micros or http.GET:/people/{id}.db.latency.mean.micros.
+     *
+     * @return the statistics, sorted by route
+     */
+    public Map<String, Number> snapshot() {
+        return queryMetrics.snapshot("http");
+    }
+}
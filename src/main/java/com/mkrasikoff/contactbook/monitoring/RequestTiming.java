@@ -0,0 +1,125 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects where the time of one HTTP request went: waiting for JdbcExecutor, running the service
+ * call on it, running JDBC statements and rendering the Thymeleaf view.
+ *
+ * RequestTimingFilter creates it for every request and binds it to the thread that handles the request;
+ * JdbcExecutor binds it to the thread that runs the database work of the request, so the parts are added
+ * from whichever thread does the work. The collected times are sent to the client in the Server-Timing header.
+ */
+public final class RequestTiming {
+
+    /**
+     * The name of the header the timings are sent in.
+     */
+    public static final String HEADER = "Server-Timing";
+
+    static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder serviceNanos = new LongAdder();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final AtomicBoolean headerWritten = new AtomicBoolean();
+
+    /**
+     * Returns the timing of the request handled by the current thread.
+     * @return the timing, or null if the thread does not handle a request.
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds the given timing to the current thread.
+     * @param timing the timing, or null to unbind.
+     * @return the timing bound before, to be passed to this method again when the work is done.
+     */
+    public static RequestTiming bind(RequestTiming timing) {
+        RequestTiming previous = CURRENT.get();
+        if (timing == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timing);
+        }
+        return previous;
+    }
+
+    public void addQueue(long nanos) {
+        queueNanos.add(nanos);
+    }
+
+    public void addService(long nanos) {
+        serviceNanos.add(nanos);
+    }
+
+    public void addStatement(long nanos) {
+        dbNanos.add(nanos);
+        statements.increment();
+    }
+
+    public void addRender(long nanos) {
+        renderNanos.add(nanos);
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    public long getQueueNanos() {
+        return queueNanos.sum();
+    }
+
+    public long getServiceNanos() {
+        return serviceNanos.sum();
+    }
+
+    public long getDbNanos() {
+        return dbNanos.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRenderNanos() {
+        return renderNanos.sum();
+    }
+
+    /**
+     * Formats the timings collected so far as the value of the Server-Timing header, in milliseconds,
+     * e.g. app;dur=12.5, queue;dur=0.1, service;dur=6.2, db;dur=4.8;desc="3 statements", render;dur=5.0.
+     * @return the value of the header.
+     */
+    public String toServerTiming() {
+        return "app;dur=" + millis(getElapsedNanos())
+                + ", queue;dur=" + millis(getQueueNanos())
+                + ", service;dur=" + millis(getServiceNanos())
+                + ", db;dur=" + millis(getDbNanos()) + ";desc=\"" + getStatements() + " statements\""
+                + ", render;dur=" + millis(getRenderNanos());
+    }
+
+    /**
+     * Sets the Server-Timing header on the given response, once per request and only while it is not committed.
+     * @param response the response.
+     */
+    void writeHeader(HttpServletResponse response) {
+        if (!response.isCommitted() && headerWritten.compareAndSet(false, true)) {
+            response.setHeader(HEADER, toServerTiming());
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,117 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * This filter measures every request, sends its RequestTiming in the Server-Timing header and reports it
+ * to RequestMetrics when the request is finished.
+ *
+ * The header has to be set before the response is committed, so it is set when the handler starts the body,
+ * redirects or sends an error, and carries the times collected up to that point. TimedThymeleafView renders
+ * pages into a buffer first, so the header of a page includes its rendering. The body of a streamed response,
+ * such as the CSV export, is written after the header, so its time only shows in RequestMetrics.
+ *
+ * Asynchronous handlers finish on a later dispatch of the same request, which picks up the timing
+ * of the first dispatch.
+ */
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private final RequestMetrics requestMetrics;
+
+    public RequestTimingFilter(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = (RequestTiming) request.getAttribute(RequestTiming.ATTRIBUTE);
+        if (timing == null) {
+            timing = new RequestTiming();
+            request.setAttribute(RequestTiming.ATTRIBUTE, timing);
+            response = new ServerTimingResponse(response, timing);
+        }
+
+        RequestTiming previous = RequestTiming.bind(timing);
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            RequestTiming.bind(previous);
+            if (!isAsyncStarted(request)) {
+                timing.writeHeader(response);
+                requestMetrics.record(route(request), timing, failed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? RequestMetrics.UNMATCHED : request.getMethod() + ":" + pattern;
+    }
+
+    /**
+     * Sets the Server-Timing header right before anything commits the response.
+     */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+
+        private ServerTimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            timing.writeHeader(this);
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            timing.writeHeader(this);
+            return super.getWriter();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            timing.writeHeader(this);
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            timing.writeHeader(this);
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            timing.writeHeader(this);
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            timing.writeHeader(this);
+            super.flushBuffer();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import java.util.regex.Pattern;
+
+/**
+ * This class turns SQL statements into fingerprints, so statements that differ only in their values
+ * are aggregated together.
+ *
+ * String and number literals become '?', runs of whitespace become one space, and a list of placeholders
+ * in parentheses, such as the IN lists built for a number of IDs, becomes '(?, ...)' whatever its length.
+ * Identifiers, keywords and the order of the clauses are kept, so statements built with different
+ * sort columns keep different fingerprints.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\?(?:, ?\\?)+\\)");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Returns the fingerprint of the given statement.
+     *
+     * @param sql the SQL statement
+     * @return the normalized statement
+     */
+    public static String of(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (c == '\'') {
+                i = skipString(sql, i + 1);
+                builder.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierPart(builder)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+                builder.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) i++;
+                if (builder.length() > 0) builder.append(' ');
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+
+        String fingerprint = builder.toString().trim();
+        return PLACEHOLDER_LIST.matcher(fingerprint).replaceAll("(?, ...)");
+    }
+
+    private static int skipString(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\\') {
+                i += 2;
+                continue;
+            }
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(StringBuilder builder) {
+        if (builder.length() == 0) return false;
+        char previous = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_';
+    }
+}
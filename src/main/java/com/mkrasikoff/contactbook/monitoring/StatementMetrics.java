@@ -0,0 +1,126 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This component aggregates the JDBC statements reported by InstrumentedDataSource by their SqlFingerprint
+ * and logs the slow ones. Statements run for an HTTP request are also added to its RequestTiming.
+ *
+ * Every fingerprint gets a short ID, the hexadecimal hash of its text, under which its calls, errors, rows
+ * and latency percentiles are kept in QueryMetrics. Only the time spent in the driver counts as the latency
+ * of a statement; for queries, the time their result set stayed open is kept under the ID followed by .cursor.
+ * Fingerprints are cached by the raw SQL, so a constant statement is normalized only once. At most
+ * MAX_FINGERPRINTS distinct fingerprints are tracked; statements beyond that are aggregated under the ID 'other'.
+ *
+ * A statement that takes longer than the threshold in the driver is logged as a warning with its SQL,
+ * bind values and rows, so a streamed query consumed slowly by the application is not reported.
+ * A negative threshold turns the log off.
+ */
+@Component
+public class StatementMetrics {
+
+    private static final Log log = LogFactory.getLog(StatementMetrics.class);
+
+    static final int MAX_FINGERPRINTS = 1000;
+    static final String OTHER = "other";
+    private static final int MAX_CACHED_STATEMENTS = 10_000;
+    private static final String CURSOR_SUFFIX = ".cursor";
+
+    private final QueryMetrics queryMetrics = new QueryMetrics();
+    private final Map<String, String> fingerprintsById = new ConcurrentHashMap<>();
+    private final Map<String, String> idsBySql = new ConcurrentHashMap<>();
+    private final long thresholdNanos;
+
+    /**
+     * Constructs a new StatementMetrics.
+     *
+     * @param thresholdMs the duration above which a statement is logged, in milliseconds, negative to log none
+     */
+    public StatementMetrics(@Value("${db.slow-statement-threshold-ms:500}") long thresholdMs) {
+        this.thresholdNanos = thresholdMs < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+    }
+
+    /**
+     * Records one execution of a statement.
+     *
+     * @param sql the SQL of the statement
+     * @param nanos the time the statement took, in nanoseconds
+     * @param rows the number of rows the statement returned or changed
+     * @param failed whether the statement threw an SQLException
+     * @param binds the bind values, formatted only if the statement is logged
+     */
+    public void record(String sql, long nanos, long rows, boolean failed, Supplier<String> binds) {
+        record(idOf(sql), sql, nanos, rows, failed, binds);
+    }
+
+    /**
+     * Records one execution of a query whose result set has been closed.
+     *
+     * @param sql the SQL of the query
+     * @param nanos the time spent in the driver executing the query and fetching its rows, in nanoseconds
+     * @param cursorNanos the time from the execution until the result set was closed, in nanoseconds
+     * @param rows the number of rows read from the result set
+     * @param binds the bind values, formatted only if the query is logged
+     */
+    public void recordQuery(String sql, long nanos, long cursorNanos, long rows, Supplier<String> binds) {
+        String id = idOf(sql);
+        queryMetrics.record(id + CURSOR_SUFFIX, cursorNanos, rows, false);
+        record(id, sql, nanos, rows, false, binds);
+    }
+
+    private void record(String id, String sql, long nanos, long rows, boolean failed, Supplier<String> binds) {
+        queryMetrics.record(id, nanos, rows, failed);
+
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) timing.addStatement(nanos);
+
+        if (nanos > thresholdNanos && log.isWarnEnabled()) {
+            log.warn("Slow statement " + id + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms and "
+                    + (failed ? "failed" : "returned " + rows + " rows") + ": " + sql + " binds " + binds.get());
+        }
+    }
+
+    /**
+     * Returns the fingerprints of the statements recorded so far.
+     *
+     * @return the fingerprints by their IDs, sorted by ID
+     */
+    public Map<String, String> fingerprints() {
+        return new TreeMap<>(fingerprintsById);
+    }
+
+    /**
+     * Returns the current statistics of every fingerprint as an ordered map of metric names to values,
+     * e.g. sql.1a2b3c4d.calls or sql.1a2b3c4d.latency.p99.micros.
+     *
+     * @return the statistics, sorted by fingerprint ID
+     */
+    public Map<String, Number> snapshot() {
+        return queryMetrics.snapshot("sql");
+    }
+
+    private String idOf(String sql) {
+        String id = idsBySql.get(sql);
+        if (id != null) return id;
+
+        String fingerprint = SqlFingerprint.of(sql);
+        id = String.format("%08x", fingerprint.hashCode());
+        if (!fingerprintsById.containsKey(id)) {
+            if (fingerprintsById.size() >= MAX_FINGERPRINTS) {
+                fingerprintsById.putIfAbsent(OTHER, "statements beyond the first " + MAX_FINGERPRINTS + " fingerprints");
+                return OTHER;
+            }
+            fingerprintsById.putIfAbsent(id, fingerprint);
+        }
+        if (idsBySql.size() < MAX_CACHED_STATEMENTS) idsBySql.put(sql, id);
+        return id;
+    }
+}
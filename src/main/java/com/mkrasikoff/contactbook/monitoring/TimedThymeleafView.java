@@ -0,0 +1,30 @@
+package com.mkrasikoff.contactbook.monitoring;
+
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.thymeleaf.spring5.view.ThymeleafView;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * This view renders a Thymeleaf template into a buffer and adds the rendering time to the RequestTiming
+ * of the request before the page is written to the response, so the Server-Timing header of the page
+ * includes its rendering. Pages are small, so buffering them costs little.
+ */
+public class TimedThymeleafView extends ThymeleafView {
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        RequestTiming timing = (RequestTiming) request.getAttribute(RequestTiming.ATTRIBUTE);
+        if (timing == null) {
+            super.render(model, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper buffer = new ContentCachingResponseWrapper(response);
+        long start = System.nanoTime();
+        super.render(model, request, buffer);
+        timing.addRender(System.nanoTime() - start);
+        buffer.copyBodyToResponse();
+    }
+}
@@ -1,15 +1,37 @@
 package com.mkrasikoff.contactbook.repos;
 
+import com.mkrasikoff.contactbook.models.PageCursor;
+import com.mkrasikoff.contactbook.models.PeoplePage;
 import com.mkrasikoff.contactbook.models.Person;
-import com.mkrasikoff.contactbook.services.GenerateService;
+import com.mkrasikoff.contactbook.models.PersonFilter;
+import com.mkrasikoff.contactbook.models.PersonPatch;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.mkrasikoff.contactbook.exceptions.PersonAlreadyExistsException;
 import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException;
 import com.mkrasikoff.contactbook.exceptions.InvalidSortParameterException;
+import com.mkrasikoff.contactbook.exceptions.InvalidPageCursorException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This repository provides methods to interact with the 'person' table in the database.
@@ -17,53 +39,100 @@ import java.util.List;
 @Repository
 public class JdbcPersonRepository implements PersonRepository {
 
-    private static final String QUERY_SHOW_PEOPLE_ALL = "SELECT * FROM person";
-    private static final String QUERY_SHOW_PEOPLE_LIMIT = "SELECT * FROM person ORDER BY id LIMIT ?, ?";
+    private static final String QUERY_SHOW_PEOPLE_ALL = "SELECT " + PersonRowMapper.COLUMNS + " FROM person";
+    private static final String QUERY_STREAM_PEOPLE = "SELECT " + PersonRowMapper.COLUMNS + " FROM person ORDER BY id";
+    private static final String QUERY_SHOW_PEOPLE_LIMIT = "SELECT " + PersonRowMapper.COLUMNS + " FROM person ORDER BY %s LIMIT ?, ?";
+    private static final String QUERY_SHOW_PEOPLE_KEYSET = "SELECT " + PersonRowMapper.SUMMARY_COLUMNS +
+            " FROM person %s ORDER BY %s LIMIT ?";
+    private static final String QUERY_SHOW_PEOPLE_KEYSET_WITH_TOTAL = "SELECT " + PersonRowMapper.SUMMARY_COLUMNS + ", " +
+            "(SELECT COUNT(*) FROM person) AS total FROM person %s ORDER BY %s LIMIT ?";
     private static final String QUERY_COUNT_PEOPLE = "SELECT COUNT(*) FROM person";
-    private static final String QUERY_SHOW_PERSON = "SELECT * FROM person WHERE id = ?";
+    private static final String QUERY_ANY_PERSON = "SELECT 1 FROM person LIMIT 1";
+    private static final String QUERY_ESTIMATE_PEOPLE_MYSQL = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'person'";
+    private static final String QUERY_ESTIMATE_PEOPLE_H2 = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES " +
+            "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'PERSON'";
+    private static final String QUERY_SHOW_PEOPLE_BY_IDS = "SELECT " + PersonRowMapper.COLUMNS +
+            " FROM person WHERE id IN (%s) ORDER BY id";
+    private static final String QUERY_SHOW_PERSON = "SELECT " + PersonRowMapper.COLUMNS + " FROM person WHERE id = ?";
     private static final String QUERY_SAVE_PERSON = "INSERT INTO person(name, surname, email, logoId) VALUES(?, ?, ?, ?)";
+    private static final String QUERY_SAVE_PERSON_WITH_ID = "INSERT INTO person(name, surname, email, logoId, id) VALUES(?, ?, ?, ?, ?)";
     private static final String QUERY_UPDATE_PERSON = "UPDATE person SET name = ?, surname = ?, email = ?, logoId = ? WHERE id = ?";
+    private static final String QUERY_PATCH_PERSON = "UPDATE person SET %s WHERE id = ?";
+    private static final String QUERY_PATCH_MATCHING_PEOPLE = "UPDATE person SET %s WHERE %s";
+    private static final int EMAIL_MAX_LENGTH = 50;
+    private static final String SET_EMAIL_DOMAIN = "email = CASE WHEN LOCATE('@', email) > 0 AND LOCATE('@', email) + CHAR_LENGTH(?) <= " +
+            EMAIL_MAX_LENGTH + " THEN CONCAT(SUBSTRING(email, 1, LOCATE('@', email)), ?) ELSE email END";
+    private static final String WHERE_EMAIL_DOMAIN = "SUBSTRING(email, LOCATE('@', email) + 1) = ?";
     private static final String QUERY_DELETE_PERSON = "DELETE FROM person WHERE id = ?";
+    private static final String QUERY_DELETE_PEOPLE_BY_IDS = "DELETE FROM person WHERE id IN (%s)";
     private static final String QUERY_DELETE_ALL_PEOPLE = "DELETE FROM person";
-    private static final String QUERY_SEARCH_PERSON = "SELECT * FROM person WHERE CONCAT(name, ' ', surname) LIKE ?";
-    private static final String QUERY_CREATE_TABLE = "CREATE TABLE IF NOT EXISTS person " +
-            "(id INT PRIMARY KEY AUTO_INCREMENT, " +
-            "name VARCHAR(30), " +
-            "surname VARCHAR(30), " +
-            "email VARCHAR(50)," +
-            "logoId INT)";
+    private static final String QUERY_SEARCH_PERSON = "SELECT " + PersonRowMapper.COLUMNS +
+            " FROM person WHERE CONCAT(name, ' ', surname) LIKE ?";
+
+    private static final int IN_LIST_CHUNK_SIZE = 500;
 
     private JdbcTemplate jdbcTemplate;
-    private GenerateService generateService;
+    private TransactionTemplate transactionTemplate;
+    private int batchSize;
+    private int streamFetchSize;
 
     /**
      * Constructs the JdbcPersonRepository.
-     * If the 'person' table does not exist in the database, it is created.
-     * If the 'person' table is empty, 10 random Person objects are inserted.
+     * The constructor does not touch the database; the schema is created and seeded by StartupPhases.
      *
      * @param jdbcTemplate the JdbcTemplate to interact with the database
-     * @param generateService the GenerateService to create random Person objects
+     * @param transactionTemplate the TransactionTemplate to run batch inserts in one transaction
+     * @param batchSize the number of rows sent to the database in one JDBC batch
+     * @param streamFetchSize the number of rows fetched from the database at a time when streaming all rows
      */
     @Autowired
-    public JdbcPersonRepository(JdbcTemplate jdbcTemplate, GenerateService generateService) {
+    public JdbcPersonRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                @Value("${db.batch-size:1000}") int batchSize,
+                                @Value("${db.stream-fetch-size:1000}") int streamFetchSize) {
         this.jdbcTemplate = jdbcTemplate;
-        this.generateService = generateService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.streamFetchSize = streamFetchSize;
+    }
 
-        jdbcTemplate.execute(QUERY_CREATE_TABLE);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Person> findAll() {
+        return jdbcTemplate.query(QUERY_SHOW_PEOPLE_ALL, PersonRowMapper.FULL);
+    }
 
-        if (findAll().isEmpty()) {
-            for (int i = 1; i <= 10; i++) {
-                save(generateService.generateRandomPerson());
-            }
-        }
+    /**
+     * {@inheritDoc}
+     *
+     * The statement is forward-only and read-only with the configured fetch size. MySQL Connector/J only honours
+     * the fetch size with useCursorFetch=true in the URL, otherwise it reads the whole result into memory.
+     */
+    @Override
+    public void streamAll(Consumer<Person> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(QUERY_STREAM_PEOPLE, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamFetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(PersonRowMapper.FULL.mapRow(rs, rs.getRow())));
     }
 
     /**
      * {@inheritDoc}
+     *
+     * The ids are sent in chunks of IN lists, so a large collection does not produce one huge statement.
      */
     @Override
-    public List<Person> findAll() {
-        return jdbcTemplate.query(QUERY_SHOW_PEOPLE_ALL, new BeanPropertyRowMapper<>(Person.class));
+    public List<Person> findByIds(Collection<Integer> ids) {
+        List<Person> people = new ArrayList<>(ids.size());
+
+        for (Object[] chunk : prepareIdChunks(ids)) {
+            String placeholders = String.join(", ", Collections.nCopies(chunk.length, "?"));
+            people.addAll(jdbcTemplate.query(String.format(QUERY_SHOW_PEOPLE_BY_IDS, placeholders), PersonRowMapper.FULL, chunk));
+        }
+        return people;
     }
 
     /**
@@ -73,10 +142,59 @@ public class JdbcPersonRepository implements PersonRepository {
     public List<Person> findSpecificPeoplePage(int page, int size, String sort, boolean reverse) {
         String preparedSort = prepareSortParameter(sort);
         String order = reverse ? " DESC" : " ASC";
-        String searchQuery = QUERY_SHOW_PEOPLE_LIMIT.replace("id", preparedSort + order);
+        String searchQuery = String.format(QUERY_SHOW_PEOPLE_LIMIT, preparedSort + order);
 
         int start = (page - 1) * size;
-        return jdbcTemplate.query(searchQuery, new BeanPropertyRowMapper<>(Person.class), start, size);
+        return jdbcTemplate.query(searchQuery, PersonRowMapper.FULL, start, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * One extra row is fetched to find out whether there is a page beyond the requested one.
+     * A "previous" cursor is served by scanning in the opposite direction and reversing the rows.
+     * The total is selected as a scalar subquery next to every row, so the page and the total need
+     * a single round trip. Only an empty page reached by a cursor needs a separate count.
+     */
+    @Override
+    public PeoplePage findPeoplePage(PageCursor cursor, int size, String sort, boolean reverse, boolean withTotal) {
+        String column = prepareSortParameter(sort);
+        boolean backward = cursor != null && cursor.getBackward();
+        boolean descending = reverse != backward;
+
+        List<Object> args = new ArrayList<>();
+        String where = cursor == null ? "" : "WHERE " + prepareSeekCondition(column, descending, cursor, args);
+        String direction = descending ? " DESC" : " ASC";
+        String order = column.equals("id") ? "id" + direction : column + direction + ", id" + direction;
+        args.add(size + 1);
+
+        String searchQuery = String.format(withTotal ? QUERY_SHOW_PEOPLE_KEYSET_WITH_TOTAL : QUERY_SHOW_PEOPLE_KEYSET, where, order);
+        int[] total = {PeoplePage.UNKNOWN};
+        List<Person> people = jdbcTemplate.query(searchQuery, (rs, rowNum) -> {
+            if (withTotal && rowNum == 0) total[0] = rs.getInt("total");
+            return PersonRowMapper.SUMMARY.mapRow(rs, rowNum);
+        }, args.toArray());
+
+        boolean hasMore = people.size() > size;
+        if (hasMore) people = new ArrayList<>(people.subList(0, size));
+        if (backward) Collections.reverse(people);
+
+        int page = cursor == null ? 1 : cursor.getPage();
+        boolean hasPrevious = backward ? hasMore : cursor != null;
+        boolean hasNext = backward || hasMore;
+
+        String previousCursor = null;
+        String nextCursor = null;
+        if (!people.isEmpty()) {
+            if (hasPrevious) previousCursor = prepareCursor(people.get(0), sort, reverse, page - 1, true);
+            if (hasNext) nextCursor = prepareCursor(people.get(people.size() - 1), sort, reverse, page + 1, false);
+        }
+
+        PeoplePage peoplePage = new PeoplePage(people, page, previousCursor, nextCursor);
+        if (!withTotal) return peoplePage;
+
+        if (people.isEmpty()) total[0] = cursor == null ? 0 : count();
+        return peoplePage.withTotal(total[0], size);
     }
 
     /**
@@ -87,33 +205,118 @@ public class JdbcPersonRepository implements PersonRepository {
         return jdbcTemplate.queryForObject(QUERY_COUNT_PEOPLE, Integer.class);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The query stops at the first row, so it is as cheap on a large table as on an empty one.
+     */
+    @Override
+    public boolean isEmpty() {
+        return !jdbcTemplate.query(QUERY_ANY_PERSON, ResultSet::next);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * MySQL and H2 keep a row estimate in their information schema. For other databases the exact count is returned.
+     */
+    @Override
+    public long estimateCount() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+
+        if ("MySQL".equalsIgnoreCase(product)) {
+            return jdbcTemplate.queryForObject(QUERY_ESTIMATE_PEOPLE_MYSQL, Long.class);
+        } else if ("H2".equalsIgnoreCase(product)) {
+            return jdbcTemplate.queryForObject(QUERY_ESTIMATE_PEOPLE_H2, Long.class);
+        } else {
+            return count();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Person findById(int id) {
-        List<Person> people = jdbcTemplate.query(QUERY_SHOW_PERSON, new BeanPropertyRowMapper<>(Person.class), id);
+        List<Person> people = jdbcTemplate.query(QUERY_SHOW_PERSON, PersonRowMapper.FULL, id);
 
         return people.stream().findAny().orElseThrow(() -> new PersonNotFoundException("Person with id " + id + " not found."));
     }
 
     /**
      * {@inheritDoc}
+     *
+     * The Person is saved with a single INSERT. The uniqueness of the ID is enforced by the primary key,
+     * so no lookup is needed before the insert.
      */
     @Override
-    public void save(Person person) {
+    public int save(Person person) {
         int id = person.getId();
         String name = person.getName();
         String surname = person.getSurname();
         String email = person.getEmail();
-        int logoId = person.getLogoId();
+        Integer logoId = person.getLogoId();
 
-        try {
-            findById(id);
-            throw new PersonAlreadyExistsException("Person with id " + id + " already exists.");
-        } catch (PersonNotFoundException exc) {
-            jdbcTemplate.update(QUERY_SAVE_PERSON, name, surname, email, logoId);
+        if (id > 0) {
+            try {
+                jdbcTemplate.update(QUERY_SAVE_PERSON_WITH_ID, name, surname, email, logoId, id);
+                return id;
+            } catch (DuplicateKeyException exc) {
+                throw new PersonAlreadyExistsException("Person with id " + id + " already exists.");
+            }
         }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(QUERY_SAVE_PERSON, Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, name);
+            statement.setString(2, surname);
+            statement.setString(3, email);
+            statement.setObject(4, logoId, Types.INTEGER);
+            return statement;
+        }, keyHolder);
+        person.setId(keyHolder.getKey().intValue());
+        return person.getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The rows are sent in JDBC batches of the configured size on one connection, and the generated keys
+     * of every batch are read back in insert order. With rewriteBatchedStatements=true in the MySQL URL,
+     * the driver sends each batch as a single multi-row INSERT.
+     */
+    @Override
+    public void saveAll(Collection<Person> people) {
+        if (people.isEmpty()) return;
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(QUERY_SAVE_PERSON, Statement.RETURN_GENERATED_KEYS)) {
+                Iterator<Person> iterator = people.iterator();
+                List<Person> batch = new ArrayList<>(Math.min(batchSize, people.size()));
+
+                while (iterator.hasNext()) {
+                    Person person = iterator.next();
+                    statement.setString(1, person.getName());
+                    statement.setString(2, person.getSurname());
+                    statement.setString(3, person.getEmail());
+                    statement.setObject(4, person.getLogoId(), Types.INTEGER);
+                    statement.addBatch();
+                    batch.add(person);
+
+                    if (batch.size() == batchSize || !iterator.hasNext()) {
+                        statement.executeBatch();
+                        try (ResultSet keys = statement.getGeneratedKeys()) {
+                            for (Person saved : batch) {
+                                if (keys.next()) saved.setId(keys.getInt(1));
+                            }
+                        }
+                        batch.clear();
+                    }
+                }
+            }
+            return null;
+        }));
     }
 
     /**
@@ -124,13 +327,93 @@ public class JdbcPersonRepository implements PersonRepository {
         String name = person.getName();
         String surname = person.getSurname();
         String email = person.getEmail();
-        int logoId = person.getLogoId();
+        Integer logoId = person.getLogoId();
 
         int updatedRows = jdbcTemplate.update(QUERY_UPDATE_PERSON, name, surname, email, logoId, id);
 
         if(updatedRows == 0) throw new PersonNotFoundException("Person with id " + id + " not found.");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Patches that change the same fields share one statement, which is sent in JDBC batches of the configured size.
+     * A missing ID does not fail the batch, it only reports 0 updated rows.
+     */
+    @Override
+    public int[] updateAll(List<PersonPatch> patches) {
+        int[] updatedRows = new int[patches.size()];
+        if (patches.isEmpty()) return updatedRows;
+
+        Map<String, List<Integer>> positionsBySet = new LinkedHashMap<>();
+        for (int i = 0; i < patches.size(); i++) {
+            positionsBySet.computeIfAbsent(prepareSetClause(patches.get(i), new ArrayList<>()), set -> new ArrayList<>()).add(i);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> positionsBySet.forEach((set, positions) -> {
+            List<Object[]> batchArgs = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                PersonPatch patch = patches.get(position);
+                List<Object> args = new ArrayList<>();
+                prepareSetClause(patch, args);
+                args.add(patch.getId());
+                batchArgs.add(args.toArray());
+            }
+
+            String query = String.format(QUERY_PATCH_PERSON, set);
+            for (int from = 0; from < batchArgs.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, batchArgs.size());
+                int[] counts = jdbcTemplate.batchUpdate(query, batchArgs.subList(from, to));
+                for (int i = 0; i < counts.length; i++) {
+                    updatedRows[positions.get(from + i)] = counts[i] == Statement.SUCCESS_NO_INFO ? 1 : counts[i];
+                }
+            }
+        }));
+        return updatedRows;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A filter by IDs is sent in chunks of IN lists, like in findByIds.
+     */
+    @Override
+    public int updateMatching(PersonFilter filter, PersonPatch assignment) {
+        List<Object> setArgs = new ArrayList<>();
+        String set = prepareSetClause(assignment, setArgs);
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> whereArgs = new ArrayList<>();
+        if (filter.getLogoId() != null) {
+            conditions.add("logoId = ?");
+            whereArgs.add(filter.getLogoId());
+        }
+        if (filter.getEmailDomain() != null) {
+            conditions.add(WHERE_EMAIL_DOMAIN);
+            whereArgs.add(filter.getEmailDomain());
+        }
+
+        List<Object[]> idChunks = filter.getIds() == null ? Collections.singletonList(null) : prepareIdChunks(filter.getIds());
+
+        Integer updatedRows = transactionTemplate.execute(status -> {
+            int updated = 0;
+            for (Object[] idChunk : idChunks) {
+                List<String> chunkConditions = new ArrayList<>(conditions);
+                List<Object> args = new ArrayList<>(setArgs);
+                args.addAll(whereArgs);
+                if (idChunk != null) {
+                    chunkConditions.add("id IN (" + String.join(", ", Collections.nCopies(idChunk.length, "?")) + ")");
+                    args.addAll(Arrays.asList(idChunk));
+                }
+
+                String where = chunkConditions.isEmpty() ? "1 = 1" : String.join(" AND ", chunkConditions);
+                updated += jdbcTemplate.update(String.format(QUERY_PATCH_MATCHING_PEOPLE, set, where), args.toArray());
+            }
+            return updated;
+        });
+        return updatedRows == null ? 0 : updatedRows;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -141,6 +424,27 @@ public class JdbcPersonRepository implements PersonRepository {
         if(deletedRows == 0) throw new PersonNotFoundException("Person with id " + id + " not found.");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The ids are sent in chunks of IN lists, like in findByIds.
+     */
+    @Override
+    public int deleteByIds(Collection<Integer> ids) {
+        List<Object[]> chunks = prepareIdChunks(ids);
+        if (chunks.isEmpty()) return 0;
+
+        Integer deletedRows = transactionTemplate.execute(status -> {
+            int deleted = 0;
+            for (Object[] chunk : chunks) {
+                String placeholders = String.join(", ", Collections.nCopies(chunk.length, "?"));
+                deleted += jdbcTemplate.update(String.format(QUERY_DELETE_PEOPLE_BY_IDS, placeholders), chunk);
+            }
+            return deleted;
+        });
+        return deletedRows == null ? 0 : deletedRows;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -155,7 +459,136 @@ public class JdbcPersonRepository implements PersonRepository {
     @Override
     public List<Person> search(String query) {
         String searchQuery = "%" + query + "%";
-        return jdbcTemplate.query(QUERY_SEARCH_PERSON, new BeanPropertyRowMapper<>(Person.class), searchQuery);
+        return jdbcTemplate.query(QUERY_SEARCH_PERSON, PersonRowMapper.FULL, searchQuery);
+    }
+
+    /**
+     * Prepares the SET clause for the fields changed by the given patch.
+     * A new email domain replaces the part of the current email after '@'. An email without '@', or one that would become
+     * longer than the email column, is left unchanged, so a single row cannot fail the whole statement.
+     *
+     * @param patch the patch
+     * @param args the list the bind values are added to
+     * @return the SET clause
+     * @throws IllegalArgumentException if the patch does not change anything
+     */
+    private String prepareSetClause(PersonPatch patch, List<Object> args) {
+        List<String> assignments = new ArrayList<>();
+        if (patch.getName() != null) {
+            assignments.add("name = ?");
+            args.add(patch.getName());
+        }
+        if (patch.getSurname() != null) {
+            assignments.add("surname = ?");
+            args.add(patch.getSurname());
+        }
+        if (patch.getEmail() != null) {
+            assignments.add("email = ?");
+            args.add(patch.getEmail());
+        } else if (patch.getEmailDomain() != null) {
+            assignments.add(SET_EMAIL_DOMAIN);
+            args.add(patch.getEmailDomain());
+            args.add(patch.getEmailDomain());
+        }
+        if (patch.getLogoId() != null) {
+            assignments.add("logoId = ?");
+            args.add(patch.getLogoId());
+        }
+
+        if (assignments.isEmpty()) throw new IllegalArgumentException("The update does not change any field.");
+        return String.join(", ", assignments);
+    }
+
+    /**
+     * Splits the given ids into sorted chunks of distinct ids that fit into one IN list.
+     *
+     * @param ids the ids
+     * @return the chunks of bind values
+     */
+    private List<Object[]> prepareIdChunks(Collection<Integer> ids) {
+        int[] sortedIds = ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        List<Object[]> chunks = new ArrayList<>();
+
+        for (int from = 0; from < sortedIds.length; from += IN_LIST_CHUNK_SIZE) {
+            int to = Math.min(from + IN_LIST_CHUNK_SIZE, sortedIds.length);
+            chunks.add(Arrays.stream(sortedIds, from, to).boxed().toArray());
+        }
+        return chunks;
+    }
+
+    /**
+     * Prepares the WHERE condition that selects the rows placed after the cursor in the scan order.
+     * The id is used as a tiebreaker for equal sort values. NULL values are sorted first in ascending
+     * order by both MySQL and H2, so they are handled explicitly.
+     *
+     * @param column the sort column
+     * @param descending whether the rows are scanned in descending order
+     * @param cursor the position to continue from
+     * @param args the list the bind values are added to
+     * @return the seek condition
+     */
+    private String prepareSeekCondition(String column, boolean descending, PageCursor cursor, List<Object> args) {
+        String comparison = descending ? " < ?" : " > ?";
+
+        if (column.equals("id")) {
+            args.add(cursor.getLastId());
+            return "id" + comparison;
+        }
+
+        Object value = prepareSortValue(column, cursor.getLastValue());
+        if (value == null) {
+            args.add(cursor.getLastId());
+            return descending
+                    ? "(" + column + " IS NULL AND id < ?)"
+                    : "(" + column + " IS NOT NULL OR id > ?)";
+        }
+
+        args.add(value);
+        args.add(value);
+        args.add(cursor.getLastId());
+        return "(" + column + comparison + " OR (" + column + " = ? AND id" + comparison + ")"
+                + (descending ? " OR " + column + " IS NULL)" : ")");
+    }
+
+    /**
+     * Converts a sort value stored in a cursor to the type of its column.
+     *
+     * @param column the sort column
+     * @param value the value stored in the cursor
+     * @return the value to bind
+     * @throws InvalidPageCursorException if the value does not match the column type
+     */
+    private Object prepareSortValue(String column, String value) {
+        if (value == null || !column.equals("logoId")) return value;
+
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException exc) {
+            throw new InvalidPageCursorException("Invalid page cursor value: " + value);
+        }
+    }
+
+    /**
+     * Prepares the opaque cursor pointing from the given edge row of a page to a neighbouring page.
+     *
+     * @param edge the first row of the page for a backward cursor, the last row for a forward one
+     * @param sort the sort parameter
+     * @param reverse whether the sorting order is descending
+     * @param page the number of the page the cursor leads to
+     * @param backward whether the cursor leads to the previous page
+     * @return the encoded cursor
+     */
+    private String prepareCursor(Person edge, String sort, boolean reverse, int page, boolean backward) {
+        Object value;
+        switch (sort) {
+            case "name": value = edge.getName(); break;
+            case "surname": value = edge.getSurname(); break;
+            case "logoId": value = edge.getLogoId(); break;
+            default: value = edge.getId();
+        }
+
+        String lastValue = value == null ? null : value.toString();
+        return new PageCursor(sort, reverse, page, lastValue, edge.getId(), backward).encode();
     }
 
     /**
@@ -1,7 +1,13 @@
 package com.mkrasikoff.contactbook.repos;
 
+import com.mkrasikoff.contactbook.models.PageCursor;
+import com.mkrasikoff.contactbook.models.PeoplePage;
 import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.models.PersonFilter;
+import com.mkrasikoff.contactbook.models.PersonPatch;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 /**
@@ -16,6 +22,23 @@ public interface PersonRepository {
      */
     List<Person> findAll();
 
+    /**
+     * Passes all Person entities in the repository to the consumer one by one, in ascending order of ID,
+     * without collecting them into a list. The rows are read through a forward-only cursor, so memory use
+     * does not depend on the size of the table.
+     *
+     * @param consumer the consumer of the entities
+     */
+    void streamAll(Consumer<Person> consumer);
+
+    /**
+     * Finds the Person entities with the given IDs. IDs that do not exist are skipped.
+     *
+     * @param ids the IDs of the Person entities to retrieve
+     * @return a list of the found Person entities ordered by ID
+     */
+    List<Person> findByIds(Collection<Integer> ids);
+
     /**
      * Retrieves a specific page of Person entities in the repository sorted by a specified attribute.
      *
@@ -27,6 +50,22 @@ public interface PersonRepository {
      */
     List<Person> findSpecificPeoplePage(int page, int size, String sort, boolean reverse);
 
+    /**
+     * Retrieves a page of Person entities using keyset (seek) pagination.
+     * Rows are ordered by the specified attribute with the ID as a tiebreaker, and the page continues
+     * from the position remembered by the cursor instead of skipping rows with an offset.
+     * If requested, the total number of entities is read by the same statement as the page.
+     * The entities are read with the summary projection, their email is not loaded.
+     *
+     * @param cursor the position to continue from, or null for the first page
+     * @param size the number of entities per page
+     * @param sort the attribute to sort by
+     * @param reverse if true, sorts in descending order
+     * @param withTotal if true, the total and the page count are returned with the page
+     * @return the page with its entities and the cursors of the neighbouring pages
+     */
+    PeoplePage findPeoplePage(PageCursor cursor, int size, String sort, boolean reverse, boolean withTotal);
+
     /**
      * Counts all Person entities in the repository.
      *
@@ -34,6 +73,21 @@ public interface PersonRepository {
      */
     int count();
 
+    /**
+     * Checks whether the repository has no Person entities, without counting them.
+     *
+     * @return true if there are no Person entities
+     */
+    boolean isEmpty();
+
+    /**
+     * Estimates the number of Person entities in the repository from the table statistics of the database.
+     * The estimate is cheap to read even on very large tables, but it may differ from the exact count.
+     *
+     * @return the estimated number of Person entities
+     */
+    long estimateCount();
+
     /**
      * Finds a Person entity by its ID.
      *
@@ -44,10 +98,22 @@ public interface PersonRepository {
 
     /**
      * Saves a Person entity to the repository.
+     * If the entity has no ID (0), the ID generated by the repository is set on the given entity.
+     * Otherwise it is saved with its own ID.
      *
      * @param person the Person entity to save
+     * @return the ID of the saved Person entity
+     * @throws com.mkrasikoff.contactbook.exceptions.PersonAlreadyExistsException if a Person entity with the same ID exists
+     */
+    int save(Person person);
+
+    /**
+     * Saves the given Person entities in batches within a single transaction.
+     * Either all of them are saved or none. The IDs generated by the repository are set on the given entities.
+     *
+     * @param people the Person entities to save
      */
-    void save(Person person);
+    void saveAll(Collection<Person> people);
 
     /**
      * Updates a Person entity in the repository.
@@ -57,6 +123,24 @@ public interface PersonRepository {
      */
     void update(Person person, int id);
 
+    /**
+     * Applies the given patches to the Person entities with their IDs in batches, within a single transaction.
+     * Only the fields set in a patch are changed.
+     *
+     * @param patches the patches to apply
+     * @return the number of updated rows for every patch, in the same order; 0 means that the ID does not exist
+     */
+    int[] updateAll(List<PersonPatch> patches);
+
+    /**
+     * Applies the given assignment to every Person entity that matches the filter, within a single transaction.
+     *
+     * @param filter the filter selecting the Person entities to update
+     * @param assignment the fields to set on every matching Person entity
+     * @return the number of updated Person entities
+     */
+    int updateMatching(PersonFilter filter, PersonPatch assignment);
+
     /**
      * Deletes a Person entity by its ID.
      *
@@ -64,6 +148,15 @@ public interface PersonRepository {
      */
     void deleteById(int id);
 
+    /**
+     * Deletes the Person entities with the given IDs within a single transaction.
+     * IDs that do not exist are ignored.
+     *
+     * @param ids the IDs of the Person entities to delete
+     * @return the number of deleted Person entities
+     */
+    int deleteByIds(Collection<Integer> ids);
+
     /**
      * Deletes all Person entities in the repository.
      */
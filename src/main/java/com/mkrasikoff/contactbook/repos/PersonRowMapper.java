@@ -0,0 +1,52 @@
+package com.mkrasikoff.contactbook.repos;
+
+import com.mkrasikoff.contactbook.models.Person;
+import org.springframework.jdbc.core.RowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * This mapper converts rows of the 'person' table into Person objects.
+ *
+ * Columns are read by position, so a query has to select exactly the columns of the mapper's projection,
+ * in order, as the leading columns of its select list. Mappers are stateless and thread-safe, use the shared instances.
+ */
+public final class PersonRowMapper implements RowMapper<Person> {
+
+    /**
+     * The columns of the full projection, with every field of Person.
+     */
+    public static final String COLUMNS = "id, name, surname, email, logoId";
+
+    /**
+     * The columns of the summary projection used by the list views, which do not display the email.
+     */
+    public static final String SUMMARY_COLUMNS = "id, name, surname, logoId";
+
+    /**
+     * Maps rows selected with {@link #COLUMNS}.
+     */
+    public static final PersonRowMapper FULL = new PersonRowMapper(true);
+
+    /**
+     * Maps rows selected with {@link #SUMMARY_COLUMNS}. The email of the mapped Person objects is null.
+     */
+    public static final PersonRowMapper SUMMARY = new PersonRowMapper(false);
+
+    private final boolean withEmail;
+
+    private PersonRowMapper(boolean withEmail) {
+        this.withEmail = withEmail;
+    }
+
+    @Override
+    public Person mapRow(ResultSet rs, int rowNum) throws SQLException {
+        int id = rs.getInt(1);
+        String name = rs.getString(2);
+        String surname = rs.getString(3);
+        String email = withEmail ? rs.getString(4) : null;
+        int logoId = rs.getInt(withEmail ? 5 : 4);
+
+        return new Person(id, name, surname, email, rs.wasNull() ? null : logoId);
+    }
+}
@@ -0,0 +1,175 @@
+package com.mkrasikoff.contactbook.repos;
+
+import com.mkrasikoff.contactbook.models.PageCursor;
+import com.mkrasikoff.contactbook.models.PeoplePage;
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.models.PersonFilter;
+import com.mkrasikoff.contactbook.models.PersonPatch;
+import com.mkrasikoff.contactbook.monitoring.QueryMetrics;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * This repository measures every call to the JdbcPersonRepository it wraps and reports it to QueryMetrics
+ * under the name of the method. It is the primary PersonRepository, so all services go through it.
+ *
+ * The rows of a call are the rows it returned, or the rows it changed for writes; a count or another
+ * single value is one row. Only a DataAccessException counts as an error; a missing person or an invalid
+ * argument is a regular outcome of a query.
+ */
+@Primary
+@Repository
+public class TimedPersonRepository implements PersonRepository {
+
+    private final PersonRepository delegate;
+    private final QueryMetrics queryMetrics;
+
+    /**
+     * Constructs the TimedPersonRepository.
+     *
+     * @param delegate the repository that runs the queries
+     * @param queryMetrics the metrics the calls are reported to
+     */
+    public TimedPersonRepository(JdbcPersonRepository delegate, QueryMetrics queryMetrics) {
+        this.delegate = delegate;
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public List<Person> findAll() {
+        return timed("findAll", delegate::findAll, List::size);
+    }
+
+    @Override
+    public void streamAll(Consumer<Person> consumer) {
+        LongAdder rows = new LongAdder();
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            delegate.streamAll(person -> {
+                rows.increment();
+                consumer.accept(person);
+            });
+        } catch (DataAccessException exc) {
+            failed = true;
+            throw exc;
+        } finally {
+            queryMetrics.record("streamAll", System.nanoTime() - start, rows.sum(), failed);
+        }
+    }
+
+    @Override
+    public List<Person> findByIds(Collection<Integer> ids) {
+        return timed("findByIds", () -> delegate.findByIds(ids), List::size);
+    }
+
+    @Override
+    public List<Person> findSpecificPeoplePage(int page, int size, String sort, boolean reverse) {
+        return timed("findSpecificPeoplePage", () -> delegate.findSpecificPeoplePage(page, size, sort, reverse), List::size);
+    }
+
+    @Override
+    public PeoplePage findPeoplePage(PageCursor cursor, int size, String sort, boolean reverse, boolean withTotal) {
+        return timed("findPeoplePage", () -> delegate.findPeoplePage(cursor, size, sort, reverse, withTotal),
+                peoplePage -> peoplePage.getPeople().size());
+    }
+
+    @Override
+    public int count() {
+        return timed("count", delegate::count, count -> 1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return timed("isEmpty", delegate::isEmpty, empty -> 1);
+    }
+
+    @Override
+    public long estimateCount() {
+        return timed("estimateCount", delegate::estimateCount, estimate -> 1);
+    }
+
+    @Override
+    public Person findById(int id) {
+        return timed("findById", () -> delegate.findById(id), person -> 1);
+    }
+
+    @Override
+    public int save(Person person) {
+        return timed("save", () -> delegate.save(person), id -> 1);
+    }
+
+    @Override
+    public void saveAll(Collection<Person> people) {
+        timed("saveAll", () -> delegate.saveAll(people), people.size());
+    }
+
+    @Override
+    public void update(Person person, int id) {
+        timed("update", () -> delegate.update(person, id), 1);
+    }
+
+    @Override
+    public int[] updateAll(List<PersonPatch> patches) {
+        return timed("updateAll", () -> delegate.updateAll(patches), TimedPersonRepository::changedRows);
+    }
+
+    @Override
+    public int updateMatching(PersonFilter filter, PersonPatch assignment) {
+        return timed("updateMatching", () -> delegate.updateMatching(filter, assignment), Integer::longValue);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        timed("deleteById", () -> delegate.deleteById(id), 1);
+    }
+
+    @Override
+    public int deleteByIds(Collection<Integer> ids) {
+        return timed("deleteByIds", () -> delegate.deleteByIds(ids), Integer::longValue);
+    }
+
+    @Override
+    public void deleteAll() {
+        timed("deleteAll", delegate::deleteAll, 0);
+    }
+
+    @Override
+    public List<Person> search(String query) {
+        return timed("search", () -> delegate.search(query), List::size);
+    }
+
+    private <T> T timed(String name, Supplier<T> call, ToLongFunction<T> rows) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            queryMetrics.record(name, System.nanoTime() - start, rows.applyAsLong(result), false);
+            return result;
+        } catch (RuntimeException exc) {
+            queryMetrics.record(name, System.nanoTime() - start, 0, exc instanceof DataAccessException);
+            throw exc;
+        }
+    }
+
+    private void timed(String name, Runnable call, long rows) {
+        timed(name, () -> {
+            call.run();
+            return null;
+        }, result -> rows);
+    }
+
+    private static long changedRows(int[] counts) {
+        long rows = 0;
+        for (int count : counts) {
+            if (count > 0) rows += count;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mkrasikoff.contactbook.search;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, used for posting lists of the search index.
+ * It avoids boxing every id into an Integer object. The class is not thread-safe.
+ */
+final class IntList {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the values sorted in ascending order without duplicates.
+     */
+    int[] toSortedUniqueArray() {
+        int[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+}
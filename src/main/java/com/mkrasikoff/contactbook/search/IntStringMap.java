@@ -0,0 +1,104 @@
+package com.mkrasikoff.contactbook.search;
+
+/**
+ * A hash map from primitive int keys to non-null strings, used for the texts of the search index.
+ * It avoids boxing every id into an Integer object, and its size follows the number of entries
+ * rather than the largest key. Open addressing with linear probing; removals shift the following
+ * entries back, so no tombstones are left. The class is not thread-safe.
+ */
+final class IntStringMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private String[] values;
+    private int size;
+
+    IntStringMap() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new String[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Visits the entries of the map.
+     */
+    interface Visitor {
+        void visit(int key, String value);
+    }
+
+    String get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return values[slot];
+        }
+        return null;
+    }
+
+    void put(int key, String value) {
+        if (2 * (size + 1) > keys.length) resize(keys.length * 2);
+
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Removes the entry of the key.
+     * @return the removed value, or null if the key was absent.
+     */
+    String remove(int key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null && keys[slot] != key) slot = (slot + 1) & mask;
+        String removed = values[slot];
+        if (removed == null) return null;
+
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null) visitor.visit(keys[slot], values[slot]);
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        String[] oldValues = values;
+        keys = new int[capacity];
+        values = new String[capacity];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldValues[slot] != null) put(oldKeys[slot], oldValues[slot]);
+        }
+    }
+
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,264 @@
+package com.mkrasikoff.contactbook.search;
+
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.repos.PersonRepository;
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This component keeps an in-memory trigram index of the names and surnames of all people,
+ * so a search does not have to scan the 'person' table with LIKE '%query%'.
+ *
+ * For every person the text "name surname" is stored in lower case, and the id is added to the posting list
+ * of every trigram (three consecutive characters) of that text. A query is answered by walking the shortest
+ * posting list among the trigrams of the query and checking the stored text of each candidate, which gives
+ * the same matches as the substring search of the database. Queries shorter than a trigram scan the stored texts.
+ *
+ * Updates and deletes do not remove ids from posting lists; stale entries are filtered out by the text check
+ * and the posting lists are rebuilt once they hold more stale entries than live ones.
+ *
+ * The index is loaded from the repository by StartupPhases in the background and kept up to date by PersonService.
+ * Until it is loaded, {@link #isLoaded()} returns false and searches should go to the database.
+ */
+@Component
+public class PersonSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int MIN_STALE_POSTINGS = 1024;
+
+    private final PersonRepository personRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IntStringMap texts = new IntStringMap();
+    private Map<Long, IntList> postings = new HashMap<>();
+    private long livePostings;
+    private long totalPostings;
+
+    private volatile boolean loaded;
+    private long generation;
+    private Set<Integer> writtenWhileLoading;
+
+    /**
+     * Constructs a new PersonSearchIndex.
+     * @param personRepository the repository the index is loaded from.
+     */
+    public PersonSearchIndex(PersonRepository personRepository) {
+        this.personRepository = personRepository;
+    }
+
+    /**
+     * Loads the index from the repository, replacing its current content.
+     * Writes that happen while the index is loading are applied immediately and take precedence over the rows read by the load.
+     */
+    public void rebuild() {
+        long loadGeneration;
+        lock.writeLock().lock();
+        try {
+            reset();
+            loaded = false;
+            loadGeneration = ++generation;
+            writtenWhileLoading = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        personRepository.streamAll(person -> addLoaded(loadGeneration, person));
+
+        lock.writeLock().lock();
+        try {
+            if (generation == loadGeneration) {
+                writtenWhileLoading = null;
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether the index has been loaded and can answer searches.
+     * @return true if the index is loaded.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the number of people in the index.
+     * @return the number of indexed people.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return texts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the entry of a person.
+     * @param id the ID of the person.
+     * @param name the name of the person.
+     * @param surname the surname of the person.
+     */
+    public void put(int id, String name, String surname) {
+        lock.writeLock().lock();
+        try {
+            markWritten(id);
+            putInternal(id, name, surname);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the entry of a person.
+     * @param id the ID of the person.
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            markWritten(id);
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all entries. If the index is loading, the rows still to be read by the load are discarded.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            if (writtenWhileLoading != null) {
+                generation++;
+                writtenWhileLoading = null;
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the people whose "name surname" contains the query, ignoring case.
+     * @param query the search query.
+     * @return the IDs of the matching people in ascending order.
+     */
+    public int[] search(String query) {
+        String normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            IntList matches = new IntList();
+
+            if (normalized.length() < GRAM) {
+                texts.forEach((id, text) -> {
+                    if (text.contains(normalized)) matches.add(id);
+                });
+                return matches.toSortedUniqueArray();
+            }
+
+            IntList candidates = shortestPostings(normalized);
+            if (candidates == null) return new int[0];
+
+            for (int i = 0; i < candidates.size(); i++) {
+                int id = candidates.get(i);
+                String text = texts.get(id);
+                if (text != null && text.contains(normalized)) matches.add(id);
+            }
+            return matches.toSortedUniqueArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLoaded(long loadGeneration, Person person) {
+        lock.writeLock().lock();
+        try {
+            if (generation != loadGeneration || writtenWhileLoading.contains(person.getId())) return;
+            putInternal(person.getId(), person.getName(), person.getSurname());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markWritten(int id) {
+        if (writtenWhileLoading != null) writtenWhileLoading.add(id);
+    }
+
+    private IntList shortestPostings(String normalized) {
+        IntList shortest = null;
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            IntList list = postings.get(trigram(normalized, i));
+            if (list == null) return null;
+            if (shortest == null || list.size() < shortest.size()) shortest = list;
+        }
+        return shortest;
+    }
+
+    private void putInternal(int id, String name, String surname) {
+        removeInternal(id);
+        if (name == null || surname == null) return;
+
+        String text = normalize(name + " " + surname);
+        texts.put(id, text);
+
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), key -> new IntList()).add(id);
+        }
+        livePostings += trigramCount(text);
+        totalPostings += trigramCount(text);
+    }
+
+    private void removeInternal(int id) {
+        String text = texts.remove(id);
+        if (text == null) return;
+
+        livePostings -= trigramCount(text);
+
+        if (totalPostings > 2 * livePostings + MIN_STALE_POSTINGS) compact();
+    }
+
+    /**
+     * Rebuilds the posting lists from the stored texts, dropping stale entries.
+     */
+    private void compact() {
+        Map<Long, IntList> compacted = new HashMap<>();
+        texts.forEach((id, text) -> {
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                compacted.computeIfAbsent(trigram(text, i), key -> new IntList()).add(id);
+            }
+        });
+        postings = compacted;
+        totalPostings = livePostings;
+    }
+
+    private void reset() {
+        texts = new IntStringMap();
+        postings = new HashMap<>();
+        livePostings = 0;
+        totalPostings = 0;
+    }
+
+    private static long trigramCount(String text) {
+        return Math.max(0, text.length() - GRAM + 1);
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,175 @@
+package com.mkrasikoff.contactbook.services;
+
+import com.mkrasikoff.contactbook.cache.DataVersion;
+import com.mkrasikoff.contactbook.cache.PersonCache;
+import com.mkrasikoff.contactbook.models.BulkUpdateResult;
+import com.mkrasikoff.contactbook.models.BulkUpdateResult.RowOutcome;
+import com.mkrasikoff.contactbook.models.BulkUpdateResult.Status;
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.models.PersonFilter;
+import com.mkrasikoff.contactbook.models.PersonPatch;
+import com.mkrasikoff.contactbook.repos.PersonRepository;
+import com.mkrasikoff.contactbook.search.PersonSearchIndex;
+import org.springframework.stereotype.Service;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The BulkUpdateService applies updates to many Person objects at once, either a list of patches by ID
+ * or one assignment to every Person that matches a filter.
+ *
+ * Changed values are checked against the same constraints as the Person form. Invalid patches and missing IDs
+ * are reported per row and do not fail the rest of the batch. The search index, the caches and the data version
+ * are updated once per bulk update.
+ */
+@Service
+public class BulkUpdateService {
+
+    /**
+     * The largest number of patches accepted in one bulk update.
+     */
+    public static final int MAX_PATCHES = 100_000;
+
+    private final PersonRepository personRepository;
+    private final PersonSearchIndex personSearchIndex;
+    private final PersonCache personCache;
+    private final DataVersion dataVersion;
+    private final Validator validator;
+
+    /**
+     * Constructs a new BulkUpdateService.
+     * @param personRepository the repository to be used by this service.
+     * @param personSearchIndex the in-memory index kept up to date with changed names.
+     * @param personCache the cache of Person objects by ID.
+     * @param dataVersion the version of the data, bumped after every bulk update that changed something.
+     * @param validator the validator the changed values are checked with.
+     */
+    public BulkUpdateService(PersonRepository personRepository, PersonSearchIndex personSearchIndex,
+                             PersonCache personCache, DataVersion dataVersion, Validator validator) {
+        this.personRepository = personRepository;
+        this.personSearchIndex = personSearchIndex;
+        this.personCache = personCache;
+        this.dataVersion = dataVersion;
+        this.validator = validator;
+    }
+
+    /**
+     * Applies the given patches, each to the Person with its ID, in batches within one transaction.
+     * @param patches the patches to apply.
+     * @return the outcome of every patch, in the same order.
+     * @throws IllegalArgumentException if there are more than MAX_PATCHES patches.
+     */
+    public BulkUpdateResult updatePeople(List<PersonPatch> patches) {
+        if (patches.size() > MAX_PATCHES) {
+            throw new IllegalArgumentException("At most " + MAX_PATCHES + " updates are accepted at once.");
+        }
+
+        RowOutcome[] outcomes = new RowOutcome[patches.size()];
+        List<PersonPatch> validPatches = new ArrayList<>(patches.size());
+        List<Integer> validPositions = new ArrayList<>(patches.size());
+        Set<Integer> seenIds = new HashSet<>();
+
+        for (int i = 0; i < patches.size(); i++) {
+            PersonPatch patch = patches.get(i);
+            String error = seenIds.add(patch.getId()) ? validatePatch(patch) : "Duplicate id in the same bulk update.";
+            if (error != null) {
+                outcomes[i] = new RowOutcome(patch.getId(), Status.INVALID, error);
+            } else {
+                validPatches.add(patch);
+                validPositions.add(i);
+            }
+        }
+
+        int[] updatedRows = personRepository.updateAll(validPatches);
+
+        List<Integer> updatedIds = new ArrayList<>();
+        List<Integer> renamedIds = new ArrayList<>();
+        for (int i = 0; i < validPatches.size(); i++) {
+            PersonPatch patch = validPatches.get(i);
+            if (updatedRows[i] > 0) {
+                outcomes[validPositions.get(i)] = new RowOutcome(patch.getId(), Status.UPDATED, null);
+                updatedIds.add(patch.getId());
+                if (patch.changesName()) renamedIds.add(patch.getId());
+            } else {
+                outcomes[validPositions.get(i)] = new RowOutcome(patch.getId(), Status.NOT_FOUND,
+                        "Person with id " + patch.getId() + " not found.");
+            }
+        }
+
+        if (!renamedIds.isEmpty()) {
+            for (Person person : personRepository.findByIds(renamedIds)) {
+                personSearchIndex.put(person.getId(), person.getName(), person.getSurname());
+            }
+        }
+        if (!updatedIds.isEmpty()) {
+            updatedIds.forEach(personCache::invalidate);
+            dataVersion.bump(updatedIds);
+        }
+
+        int invalid = patches.size() - validPatches.size();
+        int notFound = validPatches.size() - updatedIds.size();
+        return new BulkUpdateResult(updatedIds.size(), notFound, invalid, List.of(outcomes));
+    }
+
+    /**
+     * Applies the given assignment to every Person that matches the filter, with one statement per chunk of IDs
+     * within one transaction. Only the logoId and the email domain can be assigned by filter.
+     * @param filter the filter selecting the Person objects to update, with at least one criterion.
+     * @param assignment the fields to set.
+     * @return the number of updated Person objects.
+     * @throws IllegalArgumentException if the filter is empty or the assignment is invalid.
+     */
+    public BulkUpdateResult updatePeopleMatching(PersonFilter filter, PersonPatch assignment) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("The filter should have at least one criterion.");
+        }
+        if (assignment.changesName() || assignment.getEmail() != null) {
+            throw new IllegalArgumentException("Only logoId and emailDomain can be assigned by filter.");
+        }
+        String error = assignment.isEmpty() ? "The update does not change any field." : validateFields(assignment);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+
+        int updated = personRepository.updateMatching(filter, assignment);
+        if (updated > 0) {
+            personCache.invalidateAll();
+            dataVersion.bump();
+        }
+        return new BulkUpdateResult(updated, 0, 0, Collections.emptyList());
+    }
+
+    private String validatePatch(PersonPatch patch) {
+        if (patch.getId() <= 0) return "The id should be positive.";
+        if (patch.isEmpty()) return "The update does not change any field.";
+        return validateFields(patch);
+    }
+
+    private String validateFields(PersonPatch patch) {
+        List<String> errors = new ArrayList<>();
+        if (patch.getName() != null) errors.addAll(validateValue("name", patch.getName()));
+        if (patch.getSurname() != null) errors.addAll(validateValue("surname", patch.getSurname()));
+        if (patch.getEmail() != null) errors.addAll(validateValue("email", patch.getEmail()));
+        if (patch.getEmail() == null && patch.getEmailDomain() != null) {
+            if (patch.getEmailDomain().isEmpty() || patch.getEmailDomain().contains("@")) {
+                errors.add("Email domain should be valid");
+            } else {
+                errors.addAll(validateValue("email", "user@" + patch.getEmailDomain()));
+            }
+        }
+        return errors.isEmpty() ? null : String.join("; ", errors);
+    }
+
+    private List<String> validateValue(String field, String value) {
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<Person> violation : validator.validateValue(Person.class, field, value)) {
+            errors.add(violation.getMessage());
+        }
+        return errors;
+    }
+}
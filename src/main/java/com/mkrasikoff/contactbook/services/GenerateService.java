@@ -1,41 +1,44 @@
 package com.mkrasikoff.contactbook.services;
 
-import com.github.javafaker.Faker;
+import com.mkrasikoff.contactbook.generate.NamePools;
+import com.mkrasikoff.contactbook.generate.PeopleGenerator;
 import com.mkrasikoff.contactbook.models.Person;
 import org.springframework.stereotype.Component;
 
-import java.util.Random;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This service provides methods to generate random Person objects.
+ * It is safe to use from several threads; for large reproducible datasets use PeopleGenerator directly.
  */
 @Component
 public class GenerateService {
 
-    Random random = new Random();
-    Faker faker = new Faker();
-
     /**
      * Generates a random Person object.
-     * The name, surname, and email of the Person are generated using the Faker library.
+     * The name and surname of the Person are picked from the English NamePools, and the email is made of them.
      * The logoId of the Person is a random integer between 1 and 4 (inclusive).
      * @return the generated Person object.
      */
     public Person generateRandomPerson() {
-        String name = faker.name().firstName();
-        String surname = faker.name().lastName();
-        String email = name.toLowerCase() + "." + surname.toLowerCase() + "@email.com";
-        int logoId = generateRandomLogoId();
+        return newGenerator().generate(0);
+    }
 
-        return new Person(name, surname, email, logoId);
+    /**
+     * Generates the given number of random Person objects.
+     * @param count the number of Person objects to generate.
+     * @return the generated Person objects.
+     */
+    public List<Person> generateRandomPeople(int count) {
+        return newGenerator().generate(0, count);
     }
 
     /**
-     * Generates a random integer between 1 and 4 (inclusive).
-     * This integer is used as the logoId for the generated Person objects.
-     * @return the generated integer.
+     * Creates a generator with a random seed, so every call gives different people.
+     * @return the generator.
      */
-    private int generateRandomLogoId() {
-        return random.nextInt(4) + 1;
+    private PeopleGenerator newGenerator() {
+        return new PeopleGenerator(NamePools.english(), ThreadLocalRandom.current().nextLong());
     }
 }
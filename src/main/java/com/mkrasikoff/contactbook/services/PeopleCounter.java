@@ -0,0 +1,121 @@
+package com.mkrasikoff.contactbook.services;
+
+import com.mkrasikoff.contactbook.repos.PersonRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This component keeps the total number of Person objects in memory, so list pages do not have to run
+ * COUNT(*) on every request.
+ *
+ * The count is loaded lazily from the repository and then maintained incrementally by PersonService
+ * on every save and delete. It is reconciled with the database on a schedule and on demand, which corrects
+ * any drift caused by writes that bypassed the service or raced with a reconciliation.
+ *
+ * In APPROXIMATE mode the reconciliation reads the row estimate kept in the table statistics instead of
+ * counting rows, which is constant time on very large tables.
+ */
+@Component
+public class PeopleCounter {
+
+    /**
+     * How the counter is reconciled with the database.
+     */
+    public enum Mode {
+        EXACT,
+        APPROXIMATE
+    }
+
+    private static final long UNKNOWN = -1;
+
+    private final PersonRepository personRepository;
+    private final Mode mode;
+    private final AtomicLong count = new AtomicLong(UNKNOWN);
+
+    /**
+     * Constructs a new PeopleCounter.
+     * @param personRepository the repository the counter is reconciled with.
+     * @param mode whether the counter is reconciled with an exact count or with the table statistics.
+     */
+    public PeopleCounter(PersonRepository personRepository, @Value("${people.count.mode:EXACT}") Mode mode) {
+        this.personRepository = personRepository;
+        this.mode = mode;
+    }
+
+    /**
+     * Returns the current count, loading it from the repository if it is not known yet.
+     * @return the number of Person objects.
+     */
+    public long get() {
+        long current = count.get();
+        return current == UNKNOWN ? reconcile() : current;
+    }
+
+    /**
+     * Checks whether the count has been loaded, so that get() does not query the repository.
+     * @return true if the count is known.
+     */
+    public boolean isKnown() {
+        return count.get() != UNKNOWN;
+    }
+
+    /**
+     * Replaces the count with a total that has been read from the database as a side effect of another query.
+     * @param counted the number of Person objects.
+     */
+    public void set(long counted) {
+        count.set(counted);
+    }
+
+    /**
+     * Returns the reconciliation mode of this counter.
+     * @return the mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Adds the given number of created Person objects to the count.
+     * @param created the number of created Person objects.
+     */
+    public void increment(int created) {
+        count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : current + created);
+    }
+
+    /**
+     * Subtracts the given number of deleted Person objects from the count.
+     * @param deleted the number of deleted Person objects.
+     */
+    public void decrement(int deleted) {
+        count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : Math.max(0, current - deleted));
+    }
+
+    /**
+     * Sets the count to zero after all Person objects have been deleted.
+     */
+    public void reset() {
+        count.set(0);
+    }
+
+    /**
+     * Replaces the count with a value read from the database in the current mode.
+     * @return the reconciled count.
+     */
+    public synchronized long reconcile() {
+        long reconciled = mode == Mode.APPROXIMATE ? personRepository.estimateCount() : personRepository.count();
+        count.set(reconciled);
+        return reconciled;
+    }
+
+    /**
+     * Reconciles the count periodically. The interval is configured with people.count.reconcile-interval-ms.
+     */
+    @Scheduled(fixedDelayString = "${people.count.reconcile-interval-ms:300000}",
+            initialDelayString = "${people.count.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+}
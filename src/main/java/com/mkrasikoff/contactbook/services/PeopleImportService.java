@@ -0,0 +1,161 @@
+package com.mkrasikoff.contactbook.services;
+
+import com.mkrasikoff.contactbook.csv.CsvReader;
+import com.mkrasikoff.contactbook.exceptions.CsvFormatException;
+import com.mkrasikoff.contactbook.models.ImportResult;
+import com.mkrasikoff.contactbook.models.ImportResult.Rejection;
+import com.mkrasikoff.contactbook.models.Person;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The PeopleImportService imports Person objects from CSV.
+ *
+ * The CSV is read one row at a time and every row is checked against the same constraints as the Person form.
+ * Valid rows are saved in chunks, each in its own transaction, so memory use does not grow with the size of the file.
+ * Invalid rows are rejected with their line and reason and do not fail the rest of the import.
+ */
+@Service
+public class PeopleImportService {
+
+    /**
+     * The largest number of rejected rows listed in the result. All rejected rows are counted.
+     */
+    public static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private static final String COLUMN_NAME = "name";
+    private static final String COLUMN_SURNAME = "surname";
+    private static final String COLUMN_EMAIL = "email";
+    private static final String COLUMN_LOGO_ID = "logoid";
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final PersonService personService;
+    private final int chunkSize;
+    private final Validator validator;
+
+    /**
+     * Constructs a new PeopleImportService.
+     * @param personService the service the valid Person objects are saved with.
+     * @param validator the validator every row is checked with.
+     * @param chunkSize the number of valid rows saved in one transaction.
+     */
+    public PeopleImportService(PersonService personService, Validator validator,
+                               @Value("${people.import.chunk-size:10000}") int chunkSize) {
+        this.personService = personService;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports Person objects from CSV. The first row is the header with the columns name, surname, email
+     * and optionally logoId, in any order. Other columns, such as the id of an exported file, are ignored,
+     * and every imported Person gets a new ID.
+     * @param reader the CSV to import.
+     * @return the numbers of accepted and rejected rows and the reasons of the first rejections.
+     * @throws IOException if the CSV cannot be read.
+     * @throws IllegalArgumentException if the CSV is empty or the header lacks a required column.
+     */
+    public ImportResult importPeopleCsv(Reader reader) throws IOException {
+        CsvReader csvReader = new CsvReader(reader);
+        List<String> header = csvReader.readRow();
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV file is empty.");
+        }
+        Map<String, Integer> columns = prepareColumns(header);
+
+        List<Person> chunk = new ArrayList<>(chunkSize);
+        List<Rejection> rejections = new ArrayList<>();
+        int accepted = 0;
+        int rejected = 0;
+        boolean completed = true;
+
+        while (true) {
+            List<String> row;
+            try {
+                row = csvReader.readRow();
+            } catch (CsvFormatException exc) {
+                rejected++;
+                if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                    rejections.add(new Rejection(csvReader.getRowLine(), exc.getMessage()));
+                }
+                completed = false;
+                break;
+            }
+            if (row == null) break;
+            if (row.size() == 1 && row.get(0).isEmpty()) continue;
+
+            Person person = new Person();
+            String error = prepareRow(row, header.size(), columns, person);
+            if (error != null) {
+                rejected++;
+                if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                    rejections.add(new Rejection(csvReader.getRowLine(), error));
+                }
+                continue;
+            }
+
+            chunk.add(person);
+            if (chunk.size() == chunkSize) {
+                personService.savePeople(chunk);
+                accepted += chunk.size();
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            personService.savePeople(chunk);
+            accepted += chunk.size();
+        }
+        return new ImportResult(accepted, rejected, completed, rejections);
+    }
+
+    private static Map<String, Integer> prepareColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (i == 0 && !column.isEmpty() && column.charAt(0) == BYTE_ORDER_MARK) column = column.substring(1);
+            columns.putIfAbsent(column, i);
+        }
+
+        if (!columns.containsKey(COLUMN_NAME) || !columns.containsKey(COLUMN_SURNAME) || !columns.containsKey(COLUMN_EMAIL)) {
+            throw new IllegalArgumentException("The CSV header should have the columns name, surname and email.");
+        }
+        return columns;
+    }
+
+    private String prepareRow(List<String> row, int expectedFields, Map<String, Integer> columns, Person person) {
+        if (row.size() != expectedFields) {
+            return "Expected " + expectedFields + " fields, found " + row.size() + ".";
+        }
+
+        person.setName(row.get(columns.get(COLUMN_NAME)));
+        person.setSurname(row.get(columns.get(COLUMN_SURNAME)));
+        person.setEmail(row.get(columns.get(COLUMN_EMAIL)));
+
+        Integer logoIdColumn = columns.get(COLUMN_LOGO_ID);
+        String logoId = logoIdColumn != null ? row.get(logoIdColumn).trim() : "";
+        if (!logoId.isEmpty()) {
+            try {
+                person.setLogoId(Integer.parseInt(logoId));
+            } catch (NumberFormatException exc) {
+                return "LogoId should be a number";
+            }
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<Person> violation : validator.validate(person)) {
+            errors.add(violation.getMessage());
+        }
+        errors.sort(null);
+        return errors.isEmpty() ? null : String.join("; ", errors);
+    }
+}
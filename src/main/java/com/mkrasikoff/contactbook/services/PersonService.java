@@ -1,9 +1,24 @@
 package com.mkrasikoff.contactbook.services;
 
+import com.mkrasikoff.contactbook.cache.DataVersion;
+import com.mkrasikoff.contactbook.cache.PeoplePageCache;
+import com.mkrasikoff.contactbook.cache.PersonCache;
+import com.mkrasikoff.contactbook.csv.CsvWriter;
+import com.mkrasikoff.contactbook.models.PageCursor;
+import com.mkrasikoff.contactbook.models.PeoplePage;
 import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.search.PersonSearchIndex;
 import org.springframework.stereotype.Service;
 import com.mkrasikoff.contactbook.repos.PersonRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * The PersonService class provides the business logic for the Person entity operations.
@@ -13,17 +28,47 @@ import java.util.List;
 @Service
 public class PersonService {
 
+    /**
+     * The largest number of Person objects createRandomPeople accepts in one call.
+     */
+    public static final int MAX_GENERATED_PEOPLE = 1_000_000;
+
+    /**
+     * The header row of the CSV export.
+     */
+    public static final String[] CSV_HEADER = {"id", "name", "surname", "email", "logoId"};
+
+    private static final int GENERATE_CHUNK_SIZE = 10_000;
+
     private final PersonRepository personRepository;
     private final GenerateService generateService;
+    private final PeopleCounter peopleCounter;
+    private final PersonSearchIndex personSearchIndex;
+    private final PersonCache personCache;
+    private final PeoplePageCache peoplePageCache;
+    private final DataVersion dataVersion;
 
     /**
-     * Constructs a new PersonService with the given repository and generateService.
+     * Constructs a new PersonService with the given repository, generateService, peopleCounter, personSearchIndex,
+     * caches and dataVersion.
      * @param personRepository the repository to be used by this service.
      * @param generateService the service to be used for generating random Person objects.
+     * @param peopleCounter the counter that keeps the total number of Person objects.
+     * @param personSearchIndex the in-memory index used to answer searches.
+     * @param personCache the cache of Person objects by ID.
+     * @param peoplePageCache the cache of list pages.
+     * @param dataVersion the version of the data, bumped on every write.
      */
-    public PersonService(PersonRepository personRepository, GenerateService generateService) {
+    public PersonService(PersonRepository personRepository, GenerateService generateService,
+                         PeopleCounter peopleCounter, PersonSearchIndex personSearchIndex, PersonCache personCache,
+                         PeoplePageCache peoplePageCache, DataVersion dataVersion) {
         this.personRepository = personRepository;
         this.generateService = generateService;
+        this.peopleCounter = peopleCounter;
+        this.personSearchIndex = personSearchIndex;
+        this.personCache = personCache;
+        this.peoplePageCache = peoplePageCache;
+        this.dataVersion = dataVersion;
     }
 
     /**
@@ -34,6 +79,29 @@ public class PersonService {
         return personRepository.findAll();
     }
 
+    /**
+     * Writes all Person objects to the given writer as CSV with a header row, in ascending order of ID.
+     * The rows are streamed from the repository, so memory use does not depend on the number of Person objects.
+     * @param writer the writer the CSV is written to.
+     * @throws IOException if the CSV cannot be written.
+     */
+    public void exportPeopleCsv(Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeRow((Object[]) CSV_HEADER);
+        try {
+            personRepository.streamAll(person -> {
+                try {
+                    csv.writeRow(person.getId(), person.getName(), person.getSurname(), person.getEmail(), person.getLogoId());
+                } catch (IOException exc) {
+                    throw new UncheckedIOException(exc);
+                }
+            });
+        } catch (UncheckedIOException exc) {
+            throw exc.getCause();
+        }
+        csv.flush();
+    }
+
     /**
      * Returns a page of Person objects, sorted according to the given parameters.
      * @param page the page number.
@@ -46,29 +114,85 @@ public class PersonService {
         return personRepository.findSpecificPeoplePage(page, size, sort, reverse);
     }
 
+    /**
+     * Returns a page of Person objects using keyset pagination, sorted according to the given parameters.
+     * A cursor that was issued for another sort order is ignored and the first page is returned instead.
+     * The total is taken from PeopleCounter when it is known, otherwise it is read together with the page
+     * and used to initialize the counter. Either way the page costs a single query.
+     * Pages are served from PeoplePageCache until the next write.
+     * @param cursor the opaque cursor of the page, or null for the first page.
+     * @param size the number of Person objects per page.
+     * @param sort the field to sort by.
+     * @param reverse whether to reverse the sorting order.
+     * @return the page of Person objects with the total, the page count and the cursors of the neighbouring pages.
+     */
+    public PeoplePage showPeoplePageByCursor(String cursor, int size, String sort, boolean reverse) {
+        PageCursor pageCursor = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+
+        if (pageCursor != null && (!pageCursor.getSort().equals(sort) || pageCursor.getReverse() != reverse)) {
+            pageCursor = null;
+        }
+
+        PageCursor effectiveCursor = pageCursor;
+        return peoplePageCache.get(effectiveCursor == null ? null : cursor, size, sort, reverse,
+                () -> loadPeoplePage(effectiveCursor, size, sort, reverse));
+    }
+
+    private PeoplePage loadPeoplePage(PageCursor pageCursor, int size, String sort, boolean reverse) {
+        if (peopleCounter.isKnown()) {
+            PeoplePage peoplePage = personRepository.findPeoplePage(pageCursor, size, sort, reverse, false);
+            return peoplePage.withTotal(countPeople(), size);
+        }
+
+        PeoplePage peoplePage = personRepository.findPeoplePage(pageCursor, size, sort, reverse, true);
+        peopleCounter.set(peoplePage.getTotal());
+        return peoplePage;
+    }
+
     /**
      * Returns the total count of Person objects in the repository.
+     * The count is maintained in memory by PeopleCounter, so the database is only queried when it is not known yet.
      * @return the count of Person objects.
      */
     public int countPeople() {
-        return personRepository.count();
+        return (int) peopleCounter.get();
     }
 
     /**
      * Returns the Person object with the given ID.
+     * The Person is read through PersonCache, so only the first request for an ID queries the repository.
      * @param id the ID of the Person object to retrieve.
      * @return the Person object with the given ID.
      */
     public Person showPerson(int id) {
-        return personRepository.findById(id);
+        return personCache.get(id, personRepository::findById);
+    }
+
+    /**
+     * Returns the Person objects with the given IDs, loaded from the repository in one query per chunk of IDs.
+     * IDs that do not exist are skipped.
+     * @param ids the IDs of the Person objects to retrieve.
+     * @return the Person objects ordered by ID.
+     */
+    public List<Person> showPeopleByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return personRepository.findByIds(ids);
     }
 
     /**
      * Saves the given Person object to the repository.
      * @param person the Person object to save.
+     * @return the ID of the saved Person object.
      */
-    public void savePerson(Person person) {
-        personRepository.save(person);
+    public int savePerson(Person person) {
+        int id = personRepository.save(person);
+        peopleCounter.increment(1);
+        personSearchIndex.put(id, person.getName(), person.getSurname());
+        personCache.invalidate(id);
+        dataVersion.bump(id);
+        return id;
     }
 
     /**
@@ -78,6 +202,9 @@ public class PersonService {
      */
     public void updatePerson(Person person, int id) {
         personRepository.update(person, id);
+        personSearchIndex.put(id, person.getName(), person.getSurname());
+        personCache.invalidate(id);
+        dataVersion.bump(id);
     }
 
     /**
@@ -86,6 +213,27 @@ public class PersonService {
      */
     public void deletePerson(int id) {
         personRepository.deleteById(id);
+        peopleCounter.decrement(1);
+        personSearchIndex.remove(id);
+        personCache.invalidate(id);
+        dataVersion.bump(id);
+    }
+
+    /**
+     * Deletes the Person objects with the given IDs from the repository within one transaction.
+     * IDs that do not exist are ignored.
+     * @param ids the IDs of the Person objects to delete.
+     * @return the number of deleted Person objects.
+     */
+    public int deletePeople(Collection<Integer> ids) {
+        int deleted = personRepository.deleteByIds(ids);
+        peopleCounter.decrement(deleted);
+        for (int id : ids) {
+            personSearchIndex.remove(id);
+            personCache.invalidate(id);
+        }
+        dataVersion.bump(ids);
+        return deleted;
     }
 
     /**
@@ -93,23 +241,60 @@ public class PersonService {
      */
     public void deleteAllPeople() {
         personRepository.deleteAll();
+        peopleCounter.reset();
+        personSearchIndex.clear();
+        personCache.invalidateAll();
+        dataVersion.bump();
     }
 
     /**
      * Returns a list of Person objects that match the given search query.
+     * The matches are found in PersonSearchIndex and only the matching Person objects are loaded from the repository.
+     * While the index is not loaded, the search is done by the repository.
      * @param query the search query.
      * @return a List of matching Person objects.
      */
     public List<Person> search(String query) {
-        return personRepository.search(query);
+        if (!personSearchIndex.isLoaded()) {
+            return personRepository.search(query);
+        }
+
+        int[] ids = personSearchIndex.search(query);
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
+        return personRepository.findByIds(Arrays.stream(ids).boxed().collect(Collectors.toList()));
     }
 
     /**
-     * Creates and saves 10 random Person objects to the repository.
+     * Saves the given Person objects to the repository in batches within one transaction.
+     * @param people the Person objects to save.
      */
-    public void createRandomPeople() {
-        for (int i = 1; i <= 10; i++) {
-            savePerson(generateService.generateRandomPerson());
+    public void savePeople(List<Person> people) {
+        personRepository.saveAll(people);
+        peopleCounter.increment(people.size());
+        List<Integer> ids = new ArrayList<>(people.size());
+        for (Person person : people) {
+            personSearchIndex.put(person.getId(), person.getName(), person.getSurname());
+            personCache.invalidate(person.getId());
+            ids.add(person.getId());
+        }
+        dataVersion.bump(ids);
+    }
+
+    /**
+     * Creates and saves the given number of random Person objects to the repository.
+     * The people are generated and saved in chunks, so memory use does not grow with the count.
+     * @param count the number of Person objects to create, between 1 and MAX_GENERATED_PEOPLE.
+     * @throws IllegalArgumentException if the count is out of range.
+     */
+    public void createRandomPeople(int count) {
+        if (count < 1 || count > MAX_GENERATED_PEOPLE) {
+            throw new IllegalArgumentException("The number of people should be between 1 and " + MAX_GENERATED_PEOPLE);
+        }
+
+        for (int created = 0; created < count; created += GENERATE_CHUNK_SIZE) {
+            savePeople(generateService.generateRandomPeople(Math.min(GENERATE_CHUNK_SIZE, count - created)));
         }
     }
 }
@@ -0,0 +1,210 @@
+package com.mkrasikoff.contactbook.startup;
+
+import com.mkrasikoff.contactbook.migrations.SchemaMigrator;
+import com.mkrasikoff.contactbook.repos.PersonRepository;
+import com.mkrasikoff.contactbook.search.PersonSearchIndex;
+import com.mkrasikoff.contactbook.services.GenerateService;
+import com.mkrasikoff.contactbook.services.PersonService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This component brings the database and the in-memory state up to date once all beans are created.
+ *
+ * The schema migrations run first and block the startup, because no query can run before them. Seeding an empty
+ * table and loading the search index run afterwards on a background thread, so the context finishes starting
+ * and requests are accepted while they work. Whether the table is empty is checked with an existence query,
+ * so a large table is not counted or read. The state and duration of every phase are recorded.
+ *
+ * The application is ready once the required phases (migrations and seeding) are done; the search index
+ * is not required, because searches go to the database until it is loaded. The search index is loaded even if
+ * seeding fails, and a failed seeding, e.g. after a transient database error, is retried with an exponential
+ * backoff until it succeeds, so the application does not stay unready for good.
+ */
+@Component
+public class StartupPhases implements SmartInitializingSingleton {
+
+    /**
+     * The state of a startup phase.
+     */
+    public enum State {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    public static final String PHASE_MIGRATE = "migrate";
+    public static final String PHASE_SEED = "seed";
+    public static final String PHASE_SEARCH_INDEX = "search-index";
+
+    private final SchemaMigrator schemaMigrator;
+    private final PersonRepository personRepository;
+    private final PersonService personService;
+    private final GenerateService generateService;
+    private final PersonSearchIndex personSearchIndex;
+    private final int seedCount;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Constructs a new StartupPhases.
+     * @param schemaMigrator the migrator that creates and updates the schema.
+     * @param personRepository the repository checked for existing people.
+     * @param personService the service the seed people are saved with.
+     * @param generateService the service that generates the seed people.
+     * @param personSearchIndex the search index loaded in the background.
+     * @param seedCount the number of random people inserted into an empty table, 0 to disable seeding.
+     * @param initialBackoffMs the time before the first retry of a failed required phase, in milliseconds.
+     * @param maxBackoffMs the longest time between two retries, in milliseconds.
+     */
+    public StartupPhases(SchemaMigrator schemaMigrator, PersonRepository personRepository, PersonService personService,
+                         GenerateService generateService, PersonSearchIndex personSearchIndex,
+                         @Value("${people.seed.count:10}") int seedCount,
+                         @Value("${startup.retry.initial-backoff-ms:1000}") long initialBackoffMs,
+                         @Value("${startup.retry.max-backoff-ms:60000}") long maxBackoffMs) {
+        this.schemaMigrator = schemaMigrator;
+        this.personRepository = personRepository;
+        this.personService = personService;
+        this.generateService = generateService;
+        this.personSearchIndex = personSearchIndex;
+        this.seedCount = seedCount;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        phases.put(PHASE_MIGRATE, new Phase(true));
+        phases.put(PHASE_SEED, new Phase(true));
+        phases.put(PHASE_SEARCH_INDEX, new Phase(false));
+    }
+
+    /**
+     * Runs the migrations and starts the background phases once all singletons are created.
+     * @throws com.mkrasikoff.contactbook.exceptions.MigrationFailedException if a migration fails,
+     * which stops the startup.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        run(PHASE_MIGRATE, schemaMigrator::migrate);
+
+        Thread thread = new Thread(this::runInBackground, "startup-phases");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Checks whether all required phases are done.
+     * @return true if the application can serve requests.
+     */
+    public boolean isReady() {
+        return phases.values().stream().allMatch(phase -> !phase.required || phase.state == State.DONE);
+    }
+
+    /**
+     * Waits until the background phases have finished: the required ones successfully, after as many retries
+     * as they needed, and the search index successfully or not.
+     * @param timeoutMs the maximum time to wait, in milliseconds.
+     * @return true if the phases have finished.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean awaitFinished(long timeoutMs) throws InterruptedException {
+        return finished.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the state of the given phase.
+     * @param name the name of the phase.
+     * @return the state.
+     */
+    public State getState(String name) {
+        return phases.get(name).state;
+    }
+
+    /**
+     * Returns a snapshot of the state and duration of every phase.
+     * @return for every phase, startup.&lt;name&gt;.state, startup.&lt;name&gt;.ms and startup.&lt;name&gt;.attempts,
+     * plus the last error of a phase that failed.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        phases.forEach((name, phase) -> {
+            snapshot.put("startup." + name + ".state", phase.state);
+            snapshot.put("startup." + name + ".ms", phase.durationMs);
+            snapshot.put("startup." + name + ".attempts", phase.attempts);
+            if (phase.error != null) snapshot.put("startup." + name + ".error", phase.error);
+        });
+        return snapshot;
+    }
+
+    private void runInBackground() {
+        try {
+            boolean seeded = tryRun(PHASE_SEED, this::seed);
+            tryRun(PHASE_SEARCH_INDEX, personSearchIndex::rebuild);
+            if (!seeded) retry(PHASE_SEED, this::seed);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private boolean tryRun(String name, Runnable work) {
+        try {
+            run(name, work);
+            return true;
+        } catch (RuntimeException exc) {
+            // Recorded in the phase; the application keeps running without it.
+            return false;
+        }
+    }
+
+    private void retry(String name, Runnable work) throws InterruptedException {
+        long backoffMs = initialBackoffMs;
+        do {
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        } while (!tryRun(name, work));
+    }
+
+    private void seed() {
+        if (seedCount > 0 && personRepository.isEmpty()) {
+            personService.savePeople(generateService.generateRandomPeople(seedCount));
+        }
+    }
+
+    private void run(String name, Runnable work) {
+        Phase phase = phases.get(name);
+        long start = System.nanoTime();
+        phase.state = State.RUNNING;
+        phase.attempts++;
+        try {
+            work.run();
+            phase.error = null;
+            phase.state = State.DONE;
+        } catch (RuntimeException exc) {
+            phase.error = exc.getMessage();
+            phase.state = State.FAILED;
+            throw exc;
+        } finally {
+            phase.durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    private static final class Phase {
+        private final boolean required;
+        private volatile State state = State.PENDING;
+        private volatile long durationMs;
+        private volatile String error;
+        private volatile int attempts;
+
+        private Phase(boolean required) {
+            this.required = required;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS person (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(30),
+    surname VARCHAR(30),
+    email VARCHAR(50),
+    logoId INT
+);
@@ -0,0 +1,5 @@
+-- The list pages are sorted by one column with the id as a tiebreaker and continue from a keyset cursor,
+-- so every sort column gets a composite index ending with the id.
+CREATE INDEX idx_person_name_id ON person (name, id);
+CREATE INDEX idx_person_surname_id ON person (surname, id);
+CREATE INDEX idx_person_logo_id ON person (logoId, id);
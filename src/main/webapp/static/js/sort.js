@@ -1,27 +1,41 @@
 /**
  * This JavaScript file is used for handling data fetching and
  * page navigation for a list of people.
+ *
+ * Sorting and page changes load the page from the JSON API (/api/people) and only
+ * replace the table rows and the navigation buttons, instead of rendering a whole HTML page.
+ * The links and forms of the list still work as plain navigation without JavaScript.
  */
 
-// Initialize default values for page number, items per page, and sort order.
-let currentPage = 1;
-const perPage = 10;
-let sortOrder = 'id'; // Default sort order
-let sortReverse = false; // Default sort direction
+// The table carries the URLs and the current sort order, see the list views.
+const table = document.querySelector('.user-list');
+const rowTemplate = document.getElementById('person-row');
+const apiUrl = table.dataset.apiUrl;
+const listUrl = table.dataset.listUrl;
+const peopleUrl = table.dataset.peopleUrl;
+const staticUrl = table.dataset.staticUrl;
 
-// Attach event handlers for form submission and button clicks
-document.getElementById('sortForm').addEventListener('submit', sortFormSubmitHandler);
+// Initialize the current state from the server-rendered page.
+let perPage = Number(table.dataset.size) || 10;
+let sortOrder = table.dataset.sort || 'id'; // Default sort order
+let sortReverse = table.dataset.reverse === 'true'; // Default sort direction
+let previousCursor = readCursor('prev-button');
+let nextCursor = readCursor('next-button');
+
+// Attach event handlers for sort links and navigation buttons
+table.querySelectorAll('thead a[data-sort]').forEach(link => link.addEventListener('click', sortLinkHandler));
 document.getElementById('prev-button').addEventListener('click', prevButtonHandler);
 document.getElementById('next-button').addEventListener('click', nextButtonHandler);
+renderNavigation();
 
 /**
- * Event handler for sort form submission.
- * It updates the sortOrder based on user input and fetches the data accordingly.
+ * Event handler for sort link clicks.
+ * It loads the first page sorted by the column of the link.
  * If the user selects the same column, it toggles the sort direction.
  */
-function sortFormSubmitHandler(event) {
+function sortLinkHandler(event) {
   event.preventDefault();
-  let newSortOrder = document.getElementById('sortOrder').value;
+  let newSortOrder = event.currentTarget.dataset.sort;
 
   if (sortOrder === newSortOrder) {
     sortReverse = !sortReverse; // Toggle sort direction
@@ -30,39 +44,42 @@ function sortFormSubmitHandler(event) {
     sortReverse = false; // Reset sort direction to default
   }
 
-  getPeople(currentPage, perPage, sortOrder, sortReverse);
+  getPeople(null, perPage, sortOrder, sortReverse);
 }
 
 /**
  * Event handler for previous page button click.
- * It decrements the currentPage (if not already at the first page) and fetches the data for that page.
+ * It fetches the previous page, if there is one.
  */
-function prevButtonHandler() {
-  if (currentPage > 1) {
-    currentPage--;
-    getPeople(currentPage, perPage, sortOrder, sortReverse);
-  } else {
-    alert("You're on the first page");
+function prevButtonHandler(event) {
+  if (event.target.tagName !== 'BUTTON') return;
+  if (previousCursor) {
+    getPeople(previousCursor, perPage, sortOrder, sortReverse);
   }
 }
 
 /**
  * Event handler for next page button click.
- * It increments the currentPage and fetches the data for that page.
+ * It fetches the next page, if there is one.
  */
-function nextButtonHandler() {
-  currentPage++;
-  getPeople(currentPage, perPage, sortOrder, sortReverse);
+function nextButtonHandler(event) {
+  if (event.target.tagName !== 'BUTTON') return;
+  if (nextCursor) {
+    getPeople(nextCursor, perPage, sortOrder, sortReverse);
+  }
 }
 
 /**
- * Fetches a page of people from the server.
- * The page number, items per page, sort order, and sort direction are configurable.
+ * Fetches a page of people from the JSON API.
+ * The cursor, items per page, sort order, and sort direction are configurable.
  */
-function getPeople(page, size, sort, reverse) {
-  fetch(`/people?page=${page}&size=${size}&sort=${sort}&reverse=${reverse}`)
+function getPeople(cursor, size, sort, reverse) {
+  const params = new URLSearchParams({size: size, sort: sort, reverse: reverse});
+  if (cursor) params.set('cursor', cursor);
+
+  fetch(`${apiUrl}?${params}`, {headers: {'Accept': 'application/json'}})
     .then(handleFetchResponse)
-    .then(handleFetchData)
+    .then(page => handleFetchData(page, params))
     .catch(handleFetchError);
 }
 
@@ -78,16 +95,18 @@ function handleFetchResponse(response) {
 }
 
 /**
- * Handles the JSON data from the fetch request.
- * If the data array is empty, it alerts the user that there is no more data.
- * Otherwise, it calls renderTable to update the table with the new data.
+ * Handles the page from the fetch request.
+ * It updates the table, the sort icons and the navigation buttons,
+ * and replaces the address so a reload shows the same page.
  */
-function handleFetchData(data) {
-  if (data.length === 0) {
-    alert("No more data to fetch");
-  } else {
-    renderTable(data);
-  }
+function handleFetchData(page, params) {
+  previousCursor = page.previousCursor;
+  nextCursor = page.nextCursor;
+
+  renderTable(page.people);
+  renderSortIcons();
+  renderNavigation();
+  history.replaceState(null, '', `${listUrl}?${params}`);
 }
 
 /**
@@ -98,24 +117,66 @@ function handleFetchError(error) {
 }
 
 /**
- * Renders a table of people based on an array of data.
- * Each person is represented as a row in the table, with cells for the logo ID, name, and surname.
+ * Renders the rows of the table from the row template of the view.
+ * Values are set as text and attributes, never as HTML.
  */
-function renderTable(data) {
-  let tableBody = document.querySelector('.user-list tbody');
-  tableBody.innerHTML = ''; // Clear the current table body
-
-  // Construct new table rows based on data
-  data.forEach(person => {
-    tableBody.innerHTML += `
-      <tr>
-        <td><img src="/static/logo/${person.logoId}.png" alt="User Logo" width="45" height="45" class="round-image"></td>
-        <td>${person.name}</td>
-        <td>${person.surname}</td>
-      </tr>
-    `;
+function renderTable(people) {
+  let tableBody = table.querySelector('tbody');
+  tableBody.replaceChildren(); // Clear the current table body
+
+  people.forEach(person => {
+    const row = rowTemplate.content.cloneNode(true);
+    row.querySelectorAll('[data-field]').forEach(cell => cell.textContent = person[cell.dataset.field]);
+    row.querySelectorAll('[data-logo]').forEach(img => img.src = `${staticUrl}/logo/${person.logoId}.png`);
+    row.querySelectorAll('[data-href]').forEach(link => link.href = peopleUrl + link.dataset.href.replace('{id}', person.id));
+    row.querySelectorAll('[data-value]').forEach(input => input.value = person[input.dataset.value]);
+    tableBody.appendChild(row);
   });
 }
 
-// Call getPeople once at the start to populate the initial data
-getPeople(currentPage, perPage, sortOrder, sortReverse);
+/**
+ * Marks the sorted column and shows the sort direction next to it.
+ */
+function renderSortIcons() {
+  table.querySelectorAll('thead a[data-sort]').forEach(link => {
+    const sorted = link.dataset.sort === sortOrder;
+    link.classList.toggle('sorting-column', sorted);
+    link.querySelectorAll('.sort-icon').forEach(icon => icon.remove());
+
+    if (sorted) {
+      const icon = document.createElement('span');
+      icon.className = 'sort-icon';
+      icon.textContent = sortReverse ? '↑' : '↓';
+      link.appendChild(icon);
+    }
+  });
+}
+
+/**
+ * Shows the previous and next buttons when there is such a page, and a placeholder otherwise.
+ */
+function renderNavigation() {
+  renderButton('prev-button', 'Previous', previousCursor);
+  renderButton('next-button', 'Next', nextCursor);
+}
+
+function renderButton(containerId, label, cursor) {
+  const container = document.getElementById(containerId);
+  const element = document.createElement(cursor ? 'button' : 'div');
+  if (cursor) {
+    element.type = 'button';
+    element.className = 'btn';
+    element.textContent = label;
+  } else {
+    element.className = 'placeholder';
+  }
+  container.replaceChildren(element);
+}
+
+/**
+ * Reads the cursor of a navigation form rendered by the server, if there is one.
+ */
+function readCursor(containerId) {
+  const input = document.querySelector(`#${containerId} input[name="cursor"]`);
+  return input ? input.value : null;
+}
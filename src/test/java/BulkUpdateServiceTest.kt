@@ -0,0 +1,158 @@
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.cache.DataVersion
+import com.mkrasikoff.contactbook.cache.PersonCache
+import com.mkrasikoff.contactbook.models.BulkUpdateResult.Status
+import com.mkrasikoff.contactbook.models.Person
+import com.mkrasikoff.contactbook.models.PersonFilter
+import com.mkrasikoff.contactbook.models.PersonPatch
+import com.mkrasikoff.contactbook.repos.PersonRepository
+import com.mkrasikoff.contactbook.search.PersonSearchIndex
+import com.mkrasikoff.contactbook.services.BulkUpdateService
+import java.util.function.Consumer
+import kotlin.test.assertEquals
+
+class BulkUpdateServiceTest {
+
+    companion object {
+        val VALIDATOR = LocalValidatorFactoryBean().apply {
+            setMessageInterpolator(ParameterMessageInterpolator())
+            afterPropertiesSet()
+        }
+        val PERSON = Person(1, "Adam", "Smith", "adam_smith@email.com", 1)
+    }
+
+    private lateinit var personRepository: PersonRepository
+    private lateinit var personSearchIndex: PersonSearchIndex
+    private lateinit var personCache: PersonCache
+    private lateinit var dataVersion: DataVersion
+    private lateinit var bulkUpdateService: BulkUpdateService
+
+    @BeforeEach
+    fun setUp() {
+        personRepository = mockk()
+        personSearchIndex = PersonSearchIndex(personRepository)
+        personCache = PersonCache(100, 60_000, 60_000)
+        dataVersion = DataVersion(1000)
+        bulkUpdateService = BulkUpdateService(personRepository, personSearchIndex, personCache, dataVersion, VALIDATOR)
+    }
+
+    @Test
+    fun updatePeople_existingAndMissingIds_outcomePerRow() {
+        val patches = listOf(PersonPatch(id = 1, logoId = 2), PersonPatch(id = 999, logoId = 2))
+        every { personRepository.updateAll(patches) } returns intArrayOf(1, 0)
+
+        val result = bulkUpdateService.updatePeople(patches)
+
+        assertEquals(1, result.updated)
+        assertEquals(1, result.notFound)
+        assertEquals(listOf(Status.UPDATED, Status.NOT_FOUND), result.results.map { it.status })
+        assertEquals(1, dataVersion.get())
+    }
+
+    @Test
+    fun updatePeople_invalidPatches_reportedAndNotSentToRepository() {
+        val valid = PersonPatch(id = 1, logoId = 2)
+        val patches = listOf(
+            PersonPatch(id = 2, name = "A"),
+            valid,
+            PersonPatch(id = 3, email = "not-an-email"),
+            PersonPatch(id = 4),
+            PersonPatch(id = 1, logoId = 3),
+            PersonPatch(id = 5, emailDomain = "bad@domain")
+        )
+        every { personRepository.updateAll(listOf(valid)) } returns intArrayOf(1)
+
+        val result = bulkUpdateService.updatePeople(patches)
+
+        assertEquals(1, result.updated)
+        assertEquals(5, result.invalid)
+        assertEquals(
+            listOf(Status.INVALID, Status.UPDATED, Status.INVALID, Status.INVALID, Status.INVALID, Status.INVALID),
+            result.results.map { it.status }
+        )
+        assertEquals("Name should be between 2 and 30 characters", result.results[0].message)
+    }
+
+    @Test
+    fun updatePeople_nameChanged_searchIndexUpdatedFromRepository() {
+        every { personRepository.streamAll(any()) } answers { firstArg<Consumer<Person>>().accept(PERSON) }
+        personSearchIndex.rebuild()
+        val patches = listOf(PersonPatch(id = 1, name = "Patrick"))
+        every { personRepository.updateAll(patches) } returns intArrayOf(1)
+        every { personRepository.findByIds(listOf(1)) } returns listOf(PERSON.copy(name = "Patrick"))
+
+        bulkUpdateService.updatePeople(patches)
+
+        assertEquals(1, personSearchIndex.search("patrick smith").size)
+        assertEquals(0, personSearchIndex.search("adam").size)
+    }
+
+    @Test
+    fun updatePeople_onlyLogoChanged_repositoryNotReloaded() {
+        val patches = listOf(PersonPatch(id = 1, logoId = 3))
+        every { personRepository.updateAll(patches) } returns intArrayOf(1)
+
+        bulkUpdateService.updatePeople(patches)
+
+        verify(exactly = 0) { personRepository.findByIds(any()) }
+    }
+
+    @Test
+    fun updatePeople_cachedPersonUpdated_cacheInvalidated() {
+        every { personRepository.findById(1) } returnsMany listOf(PERSON, PERSON.copy(logoId = 3))
+        personCache.get(1, personRepository::findById)
+        val patches = listOf(PersonPatch(id = 1, logoId = 3))
+        every { personRepository.updateAll(patches) } returns intArrayOf(1)
+
+        bulkUpdateService.updatePeople(patches)
+
+        assertEquals(3, personCache.get(1, personRepository::findById).logoId)
+    }
+
+    @Test
+    fun updatePeople_tooManyPatches_exceptionThrown() {
+        val patches = (1..BulkUpdateService.MAX_PATCHES + 1).map { PersonPatch(id = it, logoId = 1) }
+
+        assertThrows<IllegalArgumentException> { bulkUpdateService.updatePeople(patches) }
+    }
+
+    @Test
+    fun updatePeopleMatching_validFilterAndAssignment_updatedCountReturned() {
+        val filter = PersonFilter(logoId = 1)
+        val assignment = PersonPatch(emailDomain = "example.com")
+        every { personRepository.updateMatching(filter, assignment) } returns 42
+
+        val result = bulkUpdateService.updatePeopleMatching(filter, assignment)
+
+        assertEquals(42, result.updated)
+        assertEquals(1, dataVersion.get())
+    }
+
+    @Test
+    fun updatePeopleMatching_emptyFilter_exceptionThrown() {
+        assertThrows<IllegalArgumentException> {
+            bulkUpdateService.updatePeopleMatching(PersonFilter(), PersonPatch(logoId = 2))
+        }
+    }
+
+    @Test
+    fun updatePeopleMatching_nameAssigned_exceptionThrown() {
+        assertThrows<IllegalArgumentException> {
+            bulkUpdateService.updatePeopleMatching(PersonFilter(logoId = 1), PersonPatch(name = "Patrick"))
+        }
+    }
+
+    @Test
+    fun updatePeopleMatching_invalidEmailDomain_exceptionThrown() {
+        assertThrows<IllegalArgumentException> {
+            bulkUpdateService.updatePeopleMatching(PersonFilter(logoId = 1), PersonPatch(emailDomain = ""))
+        }
+    }
+}
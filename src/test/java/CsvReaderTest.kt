@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.csv.CsvReader
+import com.mkrasikoff.contactbook.exceptions.CsvFormatException
+import java.io.StringReader
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+
+class CsvReaderTest {
+
+    @Test
+    fun readRow_plainRowsWithMixedLineEndings_fieldsAndLinesReturned() {
+        val reader = CsvReader(StringReader("a,b\r\nc,d\ne,\r"))
+
+        assertEquals(listOf("a", "b"), reader.readRow())
+        assertEquals(listOf("c", "d"), reader.readRow())
+        assertEquals(listOf("e", ""), reader.readRow())
+        assertEquals(3, reader.rowLine)
+        assertNull(reader.readRow())
+    }
+
+    @Test
+    fun readRow_quotedFields_separatorsQuotesAndLineBreaksKept() {
+        val reader = CsvReader(StringReader("\"Smith, Jr.\",\"O\"\"Brien\",\"two\nlines\"\r\nnext,row"))
+
+        assertEquals(listOf("Smith, Jr.", "O\"Brien", "two\nlines"), reader.readRow())
+        assertEquals(listOf("next", "row"), reader.readRow())
+        assertEquals(3, reader.rowLine)
+    }
+
+    @Test
+    fun readRow_lastRowWithoutLineBreak_returned() {
+        val reader = CsvReader(StringReader("a,b"))
+
+        assertEquals(listOf("a", "b"), reader.readRow())
+        assertNull(reader.readRow())
+    }
+
+    @Test
+    fun readRow_unclosedQuote_csvFormatExceptionThrown() {
+        val reader = CsvReader(StringReader("a,b\n\"never closed,c\n"))
+        reader.readRow()
+
+        assertThrows<CsvFormatException> { reader.readRow() }
+    }
+
+    @Test
+    fun readRow_rowLongerThanLimit_csvFormatExceptionThrown() {
+        val reader = CsvReader(StringReader("short\n" + "x".repeat(100) + "\n"), 10)
+
+        assertEquals(listOf("short"), reader.readRow())
+        assertThrows<CsvFormatException> { reader.readRow() }
+    }
+}
@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test
+import com.mkrasikoff.contactbook.csv.CsvWriter
+import java.io.StringWriter
+import kotlin.test.assertEquals
+
+class CsvWriterTest {
+
+    @Test
+    fun writeRow_plainFields_separatedByCommasAndEndedWithCrlf() {
+        val csv = write(arrayOf(1, "Adam", "Smith", "adam_smith@email.com", 1))
+
+        assertEquals("1,Adam,Smith,adam_smith@email.com,1\r\n", csv)
+    }
+
+    @Test
+    fun writeRow_fieldsWithSeparatorQuoteOrLineBreak_quoted() {
+        val csv = write(arrayOf("Smith, Jr.", "O\"Brien", "two\nlines"))
+
+        assertEquals("\"Smith, Jr.\",\"O\"\"Brien\",\"two\nlines\"\r\n", csv)
+    }
+
+    @Test
+    fun writeRow_nullField_writtenEmpty() {
+        val csv = write(arrayOf(1, null, "Smith"))
+
+        assertEquals("1,,Smith\r\n", csv)
+    }
+
+    private fun write(fields: Array<Any?>): String {
+        val out = StringWriter()
+        CsvWriter(out).writeRow(*fields)
+        return out.toString()
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test
+import com.mkrasikoff.contactbook.cache.DataVersion
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+import kotlin.test.assertTrue
+
+class DataVersionTest {
+
+    @Test
+    fun bump_rowChanged_onlyThatRowAndTableMoveToNewVersion() {
+        val dataVersion = DataVersion(100)
+        val otherRowTag = dataVersion.etag(2)
+
+        val version = dataVersion.bump(1)
+
+        assertEquals(version, dataVersion.get())
+        assertEquals(version, dataVersion.get(1))
+        assertEquals(0, dataVersion.get(2))
+        assertEquals(otherRowTag, dataVersion.etag(2))
+    }
+
+    @Test
+    fun bump_unknownRowsChanged_everyRowMovesToNewVersion() {
+        val dataVersion = DataVersion(100)
+        dataVersion.bump(1)
+
+        val version = dataVersion.bump()
+
+        assertEquals(version, dataVersion.get(1))
+        assertEquals(version, dataVersion.get(2))
+    }
+
+    @Test
+    fun bump_moreRowsThanRemembered_forgottenRowsNeverGoBack() {
+        val dataVersion = DataVersion(10)
+
+        dataVersion.bump((1..100).toList())
+        val versions = (1..100).map { dataVersion.get(it) }
+
+        assertTrue(versions.all { it == 1L })
+        assertEquals(1, dataVersion.get(1000))
+    }
+
+    @Test
+    fun etag_afterWrite_changedAndQuoted() {
+        val dataVersion = DataVersion(100)
+        val tableTag = dataVersion.etag()
+        val rowTag = dataVersion.etag(1)
+
+        dataVersion.bump(listOf(1))
+
+        assertNotEquals(tableTag, dataVersion.etag())
+        assertNotEquals(rowTag, dataVersion.etag(1))
+        assertTrue(dataVersion.etag().startsWith("\"") && dataVersion.etag().endsWith("\""))
+        assertTrue(dataVersion.lastModified(1) >= dataVersion.lastModified(2))
+    }
+}
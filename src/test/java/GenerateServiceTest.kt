@@ -1,4 +1,5 @@
 import com.mkrasikoff.contactbook.models.Person
+import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Assertions.assertFalse
 import org.junit.jupiter.api.Assertions.assertNotNull
 import org.junit.jupiter.api.Assertions.assertTrue
@@ -30,6 +31,13 @@ class GenerateServiceTest {
         assertTrue(person.logoId in 1..4, "Generated logoId is not within the expected range")
     }
 
+    @Test
+    fun generateRandomPeople_countGiven_countPeopleReturned() {
+        val people = generateService.generateRandomPeople(5)
+
+        assertEquals(5, people.size)
+    }
+
     @Test
     fun generateRandomPerson_emailContainsNameAndSurname() {
         val person: Person = generateService.generateRandomPerson()
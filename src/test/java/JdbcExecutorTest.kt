@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.async.JdbcExecutor
+import com.mkrasikoff.contactbook.async.JdbcExecutor.Mode
+import com.mkrasikoff.contactbook.monitoring.RequestTiming
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertIs
+import kotlin.test.assertTrue
+
+class JdbcExecutorTest {
+
+    private var jdbcExecutor: JdbcExecutor? = null
+
+    @AfterEach
+    fun tearDown() {
+        jdbcExecutor?.destroy()
+    }
+
+    @Test
+    fun supply_directMode_taskRunOnCallingThread() {
+        val executor = create(Mode.DIRECT, 1, 1, 1000)
+
+        val future = executor.supply { Thread.currentThread().name }
+
+        assertEquals(Thread.currentThread().name, future.getNow(null))
+    }
+
+    @Test
+    fun supply_platformMode_taskRunOnExecutorThread() {
+        val executor = create(Mode.PLATFORM, 2, 2, 1000)
+
+        val threadName = executor.supply { Thread.currentThread().name }.get(1, TimeUnit.SECONDS)
+
+        assertTrue(threadName.startsWith("jdbc-executor-"))
+        assertEquals(1L, executor.snapshot()["db.executor.completed"])
+    }
+
+    @Test
+    fun supply_virtualMode_virtualThreadsOnlyFromJava21() {
+        val executor = create(Mode.VIRTUAL, 2, 2, 1000)
+
+        val expected = if (Runtime.version().feature() >= 21) Mode.VIRTUAL else Mode.PLATFORM
+        assertEquals(expected, executor.mode)
+        assertEquals(42, executor.supply { 42 }.get(1, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun supply_queueFull_taskRejected() {
+        val executor = create(Mode.PLATFORM, 1, 1, 5000)
+        val release = CountDownLatch(1)
+        val running = executor.supply { release.await() }
+        val waiting = executor.supply { 1 }
+
+        val rejected = executor.supply { 2 }
+
+        val exc = assertThrows<ExecutionException> { rejected.get(1, TimeUnit.SECONDS) }
+        assertIs<RejectedExecutionException>(exc.cause)
+        release.countDown()
+        running.get(1, TimeUnit.SECONDS)
+        assertEquals(1, waiting.get(1, TimeUnit.SECONDS))
+        assertEquals(1L, executor.snapshot()["db.executor.rejected"])
+    }
+
+    @Test
+    fun supply_taskTooSlow_timeoutAndWaitingTaskNeverStarted() {
+        val executor = create(Mode.PLATFORM, 1, 1, 100)
+        val release = CountDownLatch(1)
+        val slow = executor.supply { release.await() }
+        val started = AtomicBoolean()
+        val waiting = executor.supply { started.set(true) }
+
+        val exc = assertThrows<ExecutionException> { slow.get(1, TimeUnit.SECONDS) }
+        assertIs<TimeoutException>(exc.cause)
+        assertThrows<ExecutionException> { waiting.get(1, TimeUnit.SECONDS) }
+        release.countDown()
+        Thread.sleep(100)
+        assertFalse(started.get())
+        assertEquals(1L, executor.snapshot()["db.executor.skipped"])
+    }
+
+    @Test
+    fun supply_requestTimingBound_timingPropagatedToExecutorThread() {
+        val executor = create(Mode.PLATFORM, 1, 1, 1000)
+        val timing = RequestTiming()
+        val previous = RequestTiming.bind(timing)
+
+        val seen = try {
+            executor.supply { Thread.sleep(5); RequestTiming.current() }.get(1, TimeUnit.SECONDS)
+        } finally {
+            RequestTiming.bind(previous)
+        }
+
+        assertTrue(seen === timing)
+        assertTrue(timing.serviceNanos >= TimeUnit.MILLISECONDS.toNanos(5))
+        assertEquals(null, executor.supply { RequestTiming.current() }.get(1, TimeUnit.SECONDS))
+    }
+
+    private fun create(mode: Mode, threads: Int, queueCapacity: Int, timeoutMs: Long): JdbcExecutor {
+        return JdbcExecutor(mode, threads, queueCapacity, timeoutMs).also { jdbcExecutor = it }
+    }
+}
@@ -0,0 +1,82 @@
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import com.mkrasikoff.contactbook.repos.PersonRepository
+import com.mkrasikoff.contactbook.services.PeopleCounter
+import kotlin.test.assertEquals
+
+class PeopleCounterTest {
+
+    private lateinit var personRepository: PersonRepository
+
+    @BeforeEach
+    fun setUp() {
+        personRepository = mockk()
+    }
+
+    @Test
+    fun get_countUnknown_loadedFromRepository() {
+        every { personRepository.count() } returns 42
+        val peopleCounter = PeopleCounter(personRepository, PeopleCounter.Mode.EXACT)
+
+        assertEquals(42, peopleCounter.get())
+        assertEquals(42, peopleCounter.get())
+        verify(exactly = 1) { personRepository.count() }
+    }
+
+    @Test
+    fun increment_countUnknown_countStaysUnknownUntilLoaded() {
+        every { personRepository.count() } returns 10
+        val peopleCounter = PeopleCounter(personRepository, PeopleCounter.Mode.EXACT)
+
+        peopleCounter.increment(5)
+
+        assertEquals(10, peopleCounter.get())
+    }
+
+    @Test
+    fun incrementAndDecrement_countKnown_countMaintained() {
+        every { personRepository.count() } returns 10
+        val peopleCounter = PeopleCounter(personRepository, PeopleCounter.Mode.EXACT)
+        peopleCounter.get()
+
+        peopleCounter.increment(3)
+        peopleCounter.decrement(1)
+
+        assertEquals(12, peopleCounter.get())
+    }
+
+    @Test
+    fun decrement_belowZero_zeroReturned() {
+        every { personRepository.count() } returns 1
+        val peopleCounter = PeopleCounter(personRepository, PeopleCounter.Mode.EXACT)
+        peopleCounter.get()
+
+        peopleCounter.decrement(3)
+
+        assertEquals(0, peopleCounter.get())
+    }
+
+    @Test
+    fun reconcile_countDrifted_countReplacedWithDatabaseValue() {
+        every { personRepository.count() } returnsMany listOf(10, 7)
+        val peopleCounter = PeopleCounter(personRepository, PeopleCounter.Mode.EXACT)
+        peopleCounter.get()
+        peopleCounter.increment(1)
+
+        peopleCounter.reconcile()
+
+        assertEquals(7, peopleCounter.get())
+    }
+
+    @Test
+    fun reconcile_approximateMode_estimateUsedInsteadOfCount() {
+        every { personRepository.estimateCount() } returns 1_000_000L
+        val peopleCounter = PeopleCounter(personRepository, PeopleCounter.Mode.APPROXIMATE)
+
+        assertEquals(1_000_000L, peopleCounter.get())
+        verify(exactly = 0) { personRepository.count() }
+    }
+}
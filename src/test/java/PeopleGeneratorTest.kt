@@ -0,0 +1,92 @@
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.generate.NamePools
+import com.mkrasikoff.contactbook.generate.PeopleGenerator
+import com.mkrasikoff.contactbook.models.Person
+import java.util.Collections
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+import kotlin.test.assertTrue
+
+class PeopleGeneratorTest {
+
+    @Test
+    fun generate_sameSeed_samePeople() {
+        val first = PeopleGenerator(NamePools.english(), 42).generate(0, 100)
+        val second = PeopleGenerator(NamePools.english(), 42).generate(0, 100)
+
+        assertEquals(first, second)
+    }
+
+    @Test
+    fun generate_differentSeeds_differentPeople() {
+        val first = PeopleGenerator(NamePools.english(), 42).generate(0, 100)
+        val second = PeopleGenerator(NamePools.english(), 43).generate(0, 100)
+
+        assertNotEquals(first, second)
+    }
+
+    @Test
+    fun generate_index_validPerson() {
+        val person = PeopleGenerator(NamePools.english(), 42).generate(7)
+
+        assertTrue(person.name!!.length in 2..30, "Name length is out of range")
+        assertTrue(person.surname!!.length in 2..30, "Surname length is out of range")
+        assertEquals("${person.name!!.lowercase()}.${person.surname!!.lowercase()}@email.com", person.email)
+        assertTrue(person.logoId in 1..4, "Generated logoId is not within the expected range")
+    }
+
+    @Test
+    fun generate_neighbouringIndexes_drawsNotShifted() {
+        val names = (1..100).map { "Name$it" }
+        val generator = PeopleGenerator(NamePools(names, names), 42)
+
+        val people = generator.generate(0, 1000)
+
+        val shifted = people.zipWithNext().count { (person, next) -> person.surname == next.name }
+        assertTrue(shifted < 50, "The surname of $shifted people equals the name of the next person")
+    }
+
+    @Test
+    fun generate_turkishDefaultLocale_emailLowerCasedByRootLocale() {
+        val generator = PeopleGenerator(NamePools(listOf("IVAN"), listOf("ILIN")), 42)
+        val defaultLocale = Locale.getDefault()
+        Locale.setDefault(Locale.forLanguageTag("tr"))
+        try {
+            assertEquals("ivan.ilin@email.com", generator.generate(0).email)
+        } finally {
+            Locale.setDefault(defaultLocale)
+        }
+    }
+
+    @Test
+    fun generate_parallelChunks_allIndexesGeneratedOnceAndIndependentOfThreads() {
+        val generator = PeopleGenerator(NamePools.english(), 42)
+        val chunks = Collections.synchronizedList(ArrayList<List<Person>>())
+        val threads = ConcurrentHashMap.newKeySet<String>()
+
+        val generated = generator.generate(1005, 100, 4) { people ->
+            threads.add(Thread.currentThread().name)
+            chunks.add(people)
+        }
+
+        assertEquals(1005, generated)
+        assertEquals(11, chunks.size)
+        assertEquals(1005, chunks.sumOf { it.size })
+        assertEquals(generator.generate(0, 1005).toSet(), chunks.flatten().toSet())
+        assertTrue(Thread.currentThread().name !in threads, "Chunks were handed over on the calling thread")
+    }
+
+    @Test
+    fun generate_sinkFails_exceptionThrownAndNoFurtherChunks() {
+        val generator = PeopleGenerator(NamePools.english(), 42)
+        var calls = 0
+
+        assertThrows<IllegalStateException> {
+            generator.generate(1000, 10, 1) { calls++; throw IllegalStateException("Insert failed") }
+        }
+        assertEquals(1, calls)
+    }
+}
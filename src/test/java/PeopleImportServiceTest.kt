@@ -0,0 +1,106 @@
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.models.ImportResult.Rejection
+import com.mkrasikoff.contactbook.models.Person
+import com.mkrasikoff.contactbook.services.PeopleImportService
+import com.mkrasikoff.contactbook.services.PersonService
+import java.io.StringReader
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class PeopleImportServiceTest {
+
+    companion object {
+        val VALIDATOR = LocalValidatorFactoryBean().apply {
+            setMessageInterpolator(ParameterMessageInterpolator())
+            afterPropertiesSet()
+        }
+        const val CHUNK_SIZE = 2
+    }
+
+    private lateinit var personService: PersonService
+    private lateinit var peopleImportService: PeopleImportService
+    private val savedChunks = mutableListOf<List<Person>>()
+
+    @BeforeEach
+    fun setUp() {
+        personService = mockk()
+        every { personService.savePeople(any()) } answers { savedChunks.add(ArrayList(firstArg<List<Person>>())) }
+        peopleImportService = PeopleImportService(personService, VALIDATOR, CHUNK_SIZE)
+    }
+
+    @Test
+    fun importPeopleCsv_validRows_savedInBoundedChunks() {
+        val csv = "name,surname,email,logoId\n" +
+            "Adam,Smith,adam_smith@email.com,1\n" +
+            "Eva,Smith,eva_smith@email.com,2\n" +
+            "John,Brown,john_brown@email.com,3\n"
+
+        val result = peopleImportService.importPeopleCsv(StringReader(csv))
+
+        assertEquals(3, result.accepted)
+        assertEquals(0, result.rejected)
+        assertTrue(result.completed)
+        assertEquals(listOf(2, 1), savedChunks.map { it.size })
+        assertEquals(Person(0, "John", "Brown", "john_brown@email.com", 3), savedChunks[1][0])
+    }
+
+    @Test
+    fun importPeopleCsv_invalidRows_rejectedWithLineAndReason() {
+        val csv = "name,surname,email,logoId\n" +
+            "A,Smith,adam_smith@email.com,1\n" +
+            "Eva,Smith,eva_smith@email.com,2\n" +
+            "John,Brown,not-an-email,3\n" +
+            "Kate,Green,kate_green@email.com,x\n" +
+            "Tom,Grey\n"
+
+        val result = peopleImportService.importPeopleCsv(StringReader(csv))
+
+        assertEquals(1, result.accepted)
+        assertEquals(4, result.rejected)
+        assertEquals(listOf(
+            Rejection(2, "Name should be between 2 and 30 characters"),
+            Rejection(4, "Email should be valid"),
+            Rejection(5, "LogoId should be a number"),
+            Rejection(6, "Expected 4 fields, found 2.")
+        ), result.rejections)
+        assertEquals(listOf("Eva"), savedChunks.flatten().map { it.name })
+    }
+
+    @Test
+    fun importPeopleCsv_exportedFile_idIgnoredAndColumnsMatchedByName() {
+        val csv = "\uFEFFid,email,surname,name\r\n42,adam_smith@email.com,Smith,Adam\r\n"
+
+        val result = peopleImportService.importPeopleCsv(StringReader(csv))
+
+        assertEquals(1, result.accepted)
+        assertEquals(Person(0, "Adam", "Smith", "adam_smith@email.com", 1), savedChunks.single().single())
+    }
+
+    @Test
+    fun importPeopleCsv_unclosedQuote_earlierRowsSavedAndImportNotCompleted() {
+        val csv = "name,surname,email\nAdam,Smith,adam_smith@email.com\n\"Eva,Smith,eva_smith@email.com\n"
+
+        val result = peopleImportService.importPeopleCsv(StringReader(csv))
+
+        assertEquals(1, result.accepted)
+        assertEquals(1, result.rejected)
+        assertFalse(result.completed)
+        assertEquals(3, result.rejections.single().line)
+    }
+
+    @Test
+    fun importPeopleCsv_headerWithoutRequiredColumn_illegalArgumentExceptionThrown() {
+        assertThrows<IllegalArgumentException> {
+            peopleImportService.importPeopleCsv(StringReader("name,surname\nAdam,Smith\n"))
+        }
+        verify(exactly = 0) { personService.savePeople(any()) }
+    }
+}
@@ -0,0 +1,48 @@
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.junit.jupiter.api.Test
+import com.mkrasikoff.contactbook.json.PeopleJsonWriter
+import com.mkrasikoff.contactbook.models.PeoplePage
+import com.mkrasikoff.contactbook.models.Person
+import java.io.ByteArrayOutputStream
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class PeopleJsonWriterTest {
+
+    companion object {
+        val PEOPLE = listOf(
+            Person(1, "Adam", "Smith", null, 1),
+            Person(2, "Eva", "O\"Brien", null, 2)
+        )
+        val MAPPER = ObjectMapper()
+    }
+
+    @Test
+    fun writePage_pageWithCursorsAndTotal_peopleAndMetadataWritten() {
+        val out = ByteArrayOutputStream()
+
+        PeopleJsonWriter.writePage(PeoplePage(PEOPLE, 2, "prev", null, 12, 6), out)
+
+        val json = MAPPER.readTree(out.toByteArray())
+        assertEquals(listOf(1, 2), json["people"].map { it["id"].asInt() })
+        assertEquals("O\"Brien", json["people"][1]["surname"].asText())
+        assertFalse(json["people"][0].has("email"))
+        assertEquals(2, json["page"].asInt())
+        assertEquals("prev", json["previousCursor"].asText())
+        assertTrue(json["nextCursor"].isNull)
+        assertEquals(12, json["total"].asInt())
+        assertEquals(6, json["pages"].asInt())
+    }
+
+    @Test
+    fun writeList_peopleWithEmail_emailAndTotalWritten() {
+        val out = ByteArrayOutputStream()
+
+        PeopleJsonWriter.writeList(listOf(Person(3, "John", "Brown", "john_brown@email.com", 3)), out)
+
+        val json = MAPPER.readTree(out.toByteArray())
+        assertEquals("john_brown@email.com", json["people"][0]["email"].asText())
+        assertEquals(1, json["total"].asInt())
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import com.mkrasikoff.contactbook.cache.DataVersion
+import com.mkrasikoff.contactbook.cache.PeoplePageCache
+import com.mkrasikoff.contactbook.models.PeoplePage
+import com.mkrasikoff.contactbook.models.Person
+import kotlin.test.assertEquals
+import kotlin.test.assertSame
+
+class PeoplePageCacheTest {
+
+    companion object {
+        val PAGE = PeoplePage(listOf(Person(1, "Adam", "Smith", null, 1), Person(2, "Eve", "Brown", null, 1)), 1, null, "next")
+    }
+
+    private lateinit var dataVersion: DataVersion
+    private lateinit var peoplePageCache: PeoplePageCache
+    private var loads = 0
+
+    @BeforeEach
+    fun setUp() {
+        dataVersion = DataVersion(1000)
+        peoplePageCache = PeoplePageCache(dataVersion, 100)
+        loads = 0
+    }
+
+    @Test
+    fun get_samePageTwice_loadedOnceAndHitCounted() {
+        peoplePageCache.get(null, 10, "name", false, ::load)
+        val page = peoplePageCache.get(null, 10, "name", false, ::load)
+
+        assertSame(PAGE, page)
+        assertEquals(1, loads)
+        assertEquals(1L, peoplePageCache.snapshot()["people.page-cache.hits"])
+    }
+
+    @Test
+    fun get_differentKeys_eachLoaded() {
+        peoplePageCache.get(null, 10, "name", false, ::load)
+        peoplePageCache.get(null, 10, "name", true, ::load)
+        peoplePageCache.get(null, 10, "surname", false, ::load)
+        peoplePageCache.get(null, 20, "name", false, ::load)
+        peoplePageCache.get("cursor", 10, "name", false, ::load)
+
+        assertEquals(5, loads)
+    }
+
+    @Test
+    fun get_versionBumped_pageLoadedAgain() {
+        peoplePageCache.get(null, 10, "name", false, ::load)
+
+        dataVersion.bump()
+        peoplePageCache.get(null, 10, "name", false, ::load)
+
+        assertEquals(2, loads)
+        assertEquals(1L, peoplePageCache.snapshot()["people.data.version"])
+    }
+
+    @Test
+    fun get_versionBumpedWhileLoading_loadedPageNotServedForNewVersion() {
+        peoplePageCache.get(null, 10, "name", false) {
+            dataVersion.bump()
+            load()
+        }
+        peoplePageCache.get(null, 10, "name", false, ::load)
+
+        assertEquals(2, loads)
+    }
+
+    @Test
+    fun get_morePeopleThanMaximumRows_pagesEvicted() {
+        (1..50).forEach { peoplePageCache.get(null, it, "name", false, ::load) }
+
+        val size = peoplePageCache.snapshot().getValue("people.page-cache.size").toLong()
+        assert(size * (PAGE.people.size + 1) <= 100) { "Expected at most 100 cached rows, was ${size * 3}" }
+        assert(peoplePageCache.snapshot().getValue("people.page-cache.evictions").toLong() > 0)
+    }
+
+    private fun load(): PeoplePage {
+        loads++
+        return PAGE
+    }
+}
@@ -0,0 +1,108 @@
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.cache.PersonCache
+import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException
+import com.mkrasikoff.contactbook.models.Person
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+
+class PersonCacheTest {
+
+    companion object {
+        val PERSON = Person(1, "Adam", "Smith", "adam_smith@email.com", 1)
+    }
+
+    private lateinit var personCache: PersonCache
+    private var loads = 0
+
+    @BeforeEach
+    fun setUp() {
+        personCache = PersonCache(100, 60_000, 60_000)
+        loads = 0
+    }
+
+    @Test
+    fun get_calledTwice_loadedOnceAndHitCounted() {
+        personCache.get(1, ::load)
+        val person = personCache.get(1, ::load)
+
+        assertEquals(PERSON, person)
+        assertEquals(1, loads)
+        assertEquals(1L, personCache.snapshot()["people.cache.hits"])
+        assertEquals(1L, personCache.snapshot()["people.cache.misses"])
+    }
+
+    @Test
+    fun get_missingId_notFoundCachedAndCounted() {
+        assertThrows<PersonNotFoundException> { personCache.get(2, ::load) }
+        assertThrows<PersonNotFoundException> { personCache.get(2, ::load) }
+
+        assertEquals(1, loads)
+        assertEquals(2L, personCache.snapshot()["people.cache.negative.hits"])
+    }
+
+    @Test
+    fun get_cachedPersonModifiedByCaller_cacheNotAffected() {
+        val person = personCache.get(1, ::load)
+        person.name = "Patrick"
+
+        val cachedPerson = personCache.get(1, ::load)
+
+        assertEquals("Adam", cachedPerson.name)
+        assertNotSame(person, cachedPerson)
+    }
+
+    @Test
+    fun invalidate_cachedId_loadedAgain() {
+        personCache.get(1, ::load)
+
+        personCache.invalidate(1)
+        personCache.get(1, ::load)
+
+        assertEquals(2, loads)
+    }
+
+    @Test
+    fun invalidateAll_cachedIds_allLoadedAgain() {
+        personCache.get(1, ::load)
+        assertThrows<PersonNotFoundException> { personCache.get(2, ::load) }
+
+        personCache.invalidateAll()
+        personCache.get(1, ::load)
+        assertThrows<PersonNotFoundException> { personCache.get(2, ::load) }
+
+        assertEquals(4, loads)
+        assertEquals(0L, personCache.snapshot()["people.cache.hits"])
+    }
+
+    @Test
+    fun get_moreIdsThanMaximumSize_evictionsCounted() {
+        val smallCache = PersonCache(10, 60_000, 60_000)
+
+        (1..100).forEach { id -> smallCache.get(id) { Person(it, "Name", "Surname", "email@email.com", 1) } }
+        smallCache.get(1) { Person(it, "Name", "Surname", "email@email.com", 1) }
+
+        val evictions = smallCache.snapshot().getValue("people.cache.evictions").toLong()
+        val size = smallCache.snapshot().getValue("people.cache.size").toLong()
+        assert(evictions >= 90) { "Expected at least 90 evictions, was $evictions" }
+        assert(size <= 10) { "Expected at most 10 entries, was $size" }
+    }
+
+    @Test
+    fun get_negativeEntryExpired_loadedAgain() {
+        val shortNegativeCache = PersonCache(100, 60_000, 1)
+
+        assertThrows<PersonNotFoundException> { shortNegativeCache.get(2, ::load) }
+        Thread.sleep(20)
+        assertThrows<PersonNotFoundException> { shortNegativeCache.get(2, ::load) }
+
+        assertEquals(2, loads)
+    }
+
+    private fun load(id: Int): Person {
+        loads++
+        if (id != PERSON.id) throw PersonNotFoundException("Person with id $id not found.")
+        return PERSON
+    }
+}
@@ -0,0 +1,55 @@
+import com.mkrasikoff.contactbook.models.Person
+import com.mkrasikoff.contactbook.repos.PersonRowMapper
+import org.h2.tools.SimpleResultSet
+import org.junit.jupiter.api.Test
+import java.sql.Types
+import kotlin.test.assertEquals
+
+class PersonRowMapperTest {
+
+    @Test
+    fun mapRow_fullProjection_allFieldsMapped() {
+        val rs = SimpleResultSet()
+        rs.addColumn("id", Types.INTEGER, 10, 0)
+        rs.addColumn("name", Types.VARCHAR, 30, 0)
+        rs.addColumn("surname", Types.VARCHAR, 30, 0)
+        rs.addColumn("email", Types.VARCHAR, 50, 0)
+        rs.addColumn("logoId", Types.INTEGER, 10, 0)
+        rs.addRow(1, "Adam", "Smith", "adam_smith@email.com", 3)
+        rs.next()
+
+        val person = PersonRowMapper.FULL.mapRow(rs, 0)
+
+        assertEquals(Person(1, "Adam", "Smith", "adam_smith@email.com", 3), person)
+    }
+
+    @Test
+    fun mapRow_summaryProjection_emailNotMapped() {
+        val rs = SimpleResultSet()
+        rs.addColumn("id", Types.INTEGER, 10, 0)
+        rs.addColumn("name", Types.VARCHAR, 30, 0)
+        rs.addColumn("surname", Types.VARCHAR, 30, 0)
+        rs.addColumn("logoId", Types.INTEGER, 10, 0)
+        rs.addRow(2, "Eva", "Smith", 4)
+        rs.next()
+
+        val person = PersonRowMapper.SUMMARY.mapRow(rs, 0)
+
+        assertEquals(Person(2, "Eva", "Smith", null, 4), person)
+    }
+
+    @Test
+    fun mapRow_logoIdIsNull_nullMapped() {
+        val rs = SimpleResultSet()
+        rs.addColumn("id", Types.INTEGER, 10, 0)
+        rs.addColumn("name", Types.VARCHAR, 30, 0)
+        rs.addColumn("surname", Types.VARCHAR, 30, 0)
+        rs.addColumn("logoId", Types.INTEGER, 10, 0)
+        rs.addRow(3, "Eve", "Brown", null)
+        rs.next()
+
+        val person = PersonRowMapper.SUMMARY.mapRow(rs, 0)
+
+        assertEquals(null, person.logoId)
+    }
+}
@@ -0,0 +1,173 @@
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import com.mkrasikoff.contactbook.models.Person
+import com.mkrasikoff.contactbook.repos.PersonRepository
+import com.mkrasikoff.contactbook.search.PersonSearchIndex
+import java.util.function.Consumer
+import kotlin.test.assertEquals
+
+class PersonSearchIndexTest {
+
+    private lateinit var personRepository: PersonRepository
+    private lateinit var personSearchIndex: PersonSearchIndex
+
+    @BeforeEach
+    fun setUp() {
+        personRepository = mockk()
+        personSearchIndex = PersonSearchIndex(personRepository)
+    }
+
+    @Test
+    fun rebuild_peopleInRepository_indexLoaded() {
+        load(Person(1, "Adam", "Smith", "adam_smith@email.com", 1), Person(2, "Eve", "Brown", "eve_brown@email.com", 1))
+
+        assertTrue(personSearchIndex.isLoaded)
+        assertEquals(2, personSearchIndex.size())
+    }
+
+    @Test
+    fun search_partOfNameOrSurname_matchingIdsReturned() {
+        load(Person(1, "Adam", "Smith", "adam_smith@email.com", 1), Person(2, "Eva", "Smith", "eva_smith@email.com", 2))
+
+        assertArrayEquals(intArrayOf(1, 2), personSearchIndex.search("Smi"))
+        assertArrayEquals(intArrayOf(2), personSearchIndex.search("Eva"))
+        assertArrayEquals(intArrayOf(2), personSearchIndex.search("Eva Smi"))
+        assertArrayEquals(intArrayOf(), personSearchIndex.search("Patrick"))
+    }
+
+    @Test
+    fun search_differentCase_matchesIgnoringCase() {
+        load(Person(1, "Adam", "Smith", "adam_smith@email.com", 1))
+
+        assertArrayEquals(intArrayOf(1), personSearchIndex.search("aDAM sMITH"))
+    }
+
+    @Test
+    fun search_queryShorterThanTrigram_matchesByScan() {
+        load(Person(1, "Adam", "Smith", "adam_smith@email.com", 1), Person(2, "Eve", "Brown", "eve_brown@email.com", 1))
+
+        assertArrayEquals(intArrayOf(2), personSearchIndex.search("ev"))
+        assertArrayEquals(intArrayOf(1, 2), personSearchIndex.search(""))
+    }
+
+    @Test
+    fun search_trigramsPresentButNotAdjacent_noFalsePositive() {
+        load(Person(1, "Annabel", "Bella", "annabel_bella@email.com", 1))
+
+        assertArrayEquals(intArrayOf(), personSearchIndex.search("annbel"))
+    }
+
+    @Test
+    fun put_existingPersonRenamed_oldNameNotFoundAndNewNameFound() {
+        load(Person(1, "Adam", "Smith", "adam_smith@email.com", 1))
+
+        personSearchIndex.put(1, "Patrick", "Smith")
+
+        assertArrayEquals(intArrayOf(), personSearchIndex.search("adam"))
+        assertArrayEquals(intArrayOf(1), personSearchIndex.search("patrick"))
+        assertEquals(1, personSearchIndex.size())
+    }
+
+    @Test
+    fun remove_existingPerson_personNotFound() {
+        load(Person(1, "Adam", "Smith", "adam_smith@email.com", 1), Person(2, "Eva", "Smith", "eva_smith@email.com", 2))
+
+        personSearchIndex.remove(1)
+
+        assertArrayEquals(intArrayOf(2), personSearchIndex.search("smith"))
+    }
+
+    @Test
+    fun clear_indexWithPeople_nothingFound() {
+        load(Person(1, "Adam", "Smith", "adam_smith@email.com", 1))
+
+        personSearchIndex.clear()
+
+        assertArrayEquals(intArrayOf(), personSearchIndex.search("smith"))
+        assertEquals(0, personSearchIndex.size())
+    }
+
+    @Test
+    fun put_manyRenames_resultsStayCorrectAfterCompaction() {
+        load()
+
+        (1..5000).forEach { personSearchIndex.put(it % 10, "Name$it", "Surname") }
+
+        assertArrayEquals(intArrayOf(0), personSearchIndex.search("name5000 "))
+        assertEquals(10, personSearchIndex.search("surname").size)
+    }
+
+    @Test
+    fun put_sparseAndHugeIds_foundWithoutDenseStorage() {
+        load()
+
+        personSearchIndex.put(2_000_000_000, "Adam", "Smith")
+        personSearchIndex.put(7, "Eva", "Smith")
+
+        assertArrayEquals(intArrayOf(7, 2_000_000_000), personSearchIndex.search("smith"))
+        assertArrayEquals(intArrayOf(2_000_000_000), personSearchIndex.search("ad"))
+    }
+
+    @Test
+    fun remove_manyPeople_remainingPeopleStillFound() {
+        load()
+        (1..3000).forEach { personSearchIndex.put(it * 7919, "Name", "Surname$it") }
+
+        (1..3000).filter { it % 3 != 0 }.forEach { personSearchIndex.remove(it * 7919) }
+
+        assertEquals(1000, personSearchIndex.size())
+        assertEquals(1000, personSearchIndex.search("surname").size)
+        assertArrayEquals(intArrayOf(3000 * 7919), personSearchIndex.search("surname3000"))
+        assertArrayEquals(intArrayOf(), personSearchIndex.search("surname2999"))
+    }
+
+    @Test
+    fun rebuild_personDeletedWhileLoading_deletedPersonNotResurrected() {
+        every {
+            personRepository.streamAll(any())
+        } answers {
+            personSearchIndex.remove(2)
+            firstArg<Consumer<Person>>().accept(Person(1, "Adam", "Smith", "adam_smith@email.com", 1))
+            firstArg<Consumer<Person>>().accept(Person(2, "Eva", "Smith", "eva_smith@email.com", 2))
+        }
+
+        personSearchIndex.rebuild()
+
+        assertArrayEquals(intArrayOf(1), personSearchIndex.search("smith"))
+    }
+
+    @Test
+    fun rebuild_allDeletedWhileLoading_remainingRowsDiscarded() {
+        every {
+            personRepository.streamAll(any())
+        } answers {
+            firstArg<Consumer<Person>>().accept(Person(1, "Adam", "Smith", "adam_smith@email.com", 1))
+            personSearchIndex.clear()
+            firstArg<Consumer<Person>>().accept(Person(2, "Eva", "Smith", "eva_smith@email.com", 2))
+        }
+
+        personSearchIndex.rebuild()
+
+        assertTrue(personSearchIndex.isLoaded)
+        assertArrayEquals(intArrayOf(), personSearchIndex.search("smith"))
+    }
+
+    @Test
+    fun isLoaded_beforeRebuild_false() {
+        assertFalse(personSearchIndex.isLoaded)
+    }
+
+    private fun load(vararg people: Person) {
+        every {
+            personRepository.streamAll(any())
+        } answers {
+            people.forEach { firstArg<Consumer<Person>>().accept(it) }
+        }
+        personSearchIndex.rebuild()
+    }
+}
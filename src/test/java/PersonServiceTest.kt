@@ -4,13 +4,25 @@ import io.mockk.verify
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.cache.DataVersion
+import com.mkrasikoff.contactbook.cache.PeoplePageCache
+import com.mkrasikoff.contactbook.cache.PersonCache
+import com.mkrasikoff.contactbook.exceptions.InvalidPageCursorException
 import com.mkrasikoff.contactbook.exceptions.InvalidSortParameterException
 import com.mkrasikoff.contactbook.exceptions.PersonAlreadyExistsException
 import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException
+import com.mkrasikoff.contactbook.models.PageCursor
+import com.mkrasikoff.contactbook.models.PeoplePage
 import com.mkrasikoff.contactbook.models.Person
 import com.mkrasikoff.contactbook.repos.PersonRepository
 import com.mkrasikoff.contactbook.services.GenerateService
+import com.mkrasikoff.contactbook.search.PersonSearchIndex
+import com.mkrasikoff.contactbook.services.PeopleCounter
 import com.mkrasikoff.contactbook.services.PersonService
+import java.io.IOException
+import java.io.StringWriter
+import java.io.Writer
+import java.util.function.Consumer
 import kotlin.test.assertEquals
 
 class PersonServiceTest {
@@ -50,19 +62,28 @@ class PersonServiceTest {
     private lateinit var personRepository: PersonRepository
     private lateinit var personService: PersonService
     private lateinit var generateService: GenerateService
+    private lateinit var peopleCounter: PeopleCounter
+    private lateinit var personSearchIndex: PersonSearchIndex
+    private lateinit var personCache: PersonCache
+    private lateinit var dataVersion: DataVersion
 
     @BeforeEach
     fun setUp() {
         personRepository = mockk()
         generateService = mockk()
-        personService = PersonService(personRepository, generateService)
+        peopleCounter = PeopleCounter(personRepository, PeopleCounter.Mode.EXACT)
+        personSearchIndex = PersonSearchIndex(personRepository)
+        personCache = PersonCache(100, 60_000, 60_000)
+        dataVersion = DataVersion(1000)
+        personService = PersonService(personRepository, generateService, peopleCounter, personSearchIndex, personCache,
+                PeoplePageCache(dataVersion, 1000), dataVersion)
     }
 
     @Test
     fun savePerson_whenPersonIsValid_personSaved() {
         every {
             personRepository.save(any())
-        } returns Unit
+        } returns PERSON_ID
 
         personService.savePerson(PERSON)
 
@@ -71,6 +92,18 @@ class PersonServiceTest {
         }
     }
 
+    @Test
+    fun savePerson_whenPersonIsValid_generatedIdReturned() {
+        val newPerson = Person(name = "Patrick", surname = "Brown", email = "patrick_brown@email.com", logoId = 3)
+        every {
+            personRepository.save(newPerson)
+        } returns 3
+
+        val id = personService.savePerson(newPerson)
+
+        assertEquals(3, id)
+    }
+
     @Test
     fun savePerson_whenPersonWithThisIdAlreadyExists_exceptionThrown() {
         every {
@@ -107,6 +140,82 @@ class PersonServiceTest {
         }
     }
 
+    @Test
+    fun showPerson_calledTwice_repositoryQueriedOnce() {
+        every {
+            personRepository.findById(PERSON_ID)
+        } returns PERSON
+
+        personService.showPerson(PERSON_ID)
+        val foundPerson = personService.showPerson(PERSON_ID)
+
+        verify(exactly = 1) {
+            personRepository.findById(PERSON_ID)
+        }
+        assertEquals(PERSON, foundPerson)
+    }
+
+    @Test
+    fun showPerson_personDoesNotExistCalledTwice_repositoryQueriedOnce() {
+        every {
+            personRepository.findById(PERSON_ID)
+        } throws PersonNotFoundException(ERROR_MESSAGE)
+
+        assertThrows<PersonNotFoundException> { personService.showPerson(PERSON_ID) }
+        assertThrows<PersonNotFoundException> { personService.showPerson(PERSON_ID) }
+
+        verify(exactly = 1) {
+            personRepository.findById(PERSON_ID)
+        }
+    }
+
+    @Test
+    fun showPerson_afterUpdate_updatedPersonLoaded() {
+        val updatedPerson = PERSON.copy(name = "Patrick")
+        every {
+            personRepository.findById(PERSON_ID)
+        } returnsMany listOf(PERSON, updatedPerson)
+        every {
+            personRepository.update(any(), any())
+        } returns Unit
+
+        personService.showPerson(PERSON_ID)
+        personService.updatePerson(updatedPerson, PERSON_ID)
+        val foundPerson = personService.showPerson(PERSON_ID)
+
+        assertEquals(updatedPerson, foundPerson)
+    }
+
+    @Test
+    fun showPerson_afterDelete_personNotFound() {
+        every {
+            personRepository.findById(PERSON_ID)
+        } returns PERSON andThenThrows PersonNotFoundException(ERROR_MESSAGE)
+        every {
+            personRepository.deleteById(PERSON_ID)
+        } returns Unit
+
+        personService.showPerson(PERSON_ID)
+        personService.deletePerson(PERSON_ID)
+
+        assertThrows<PersonNotFoundException> { personService.showPerson(PERSON_ID) }
+    }
+
+    @Test
+    fun showPerson_missingIdSavedLater_savedPersonLoaded() {
+        every {
+            personRepository.findById(PERSON_ID)
+        } throws PersonNotFoundException(ERROR_MESSAGE) andThen PERSON
+        every {
+            personRepository.save(any())
+        } returns PERSON_ID
+
+        assertThrows<PersonNotFoundException> { personService.showPerson(PERSON_ID) }
+        personService.savePerson(PERSON)
+
+        assertEquals(PERSON, personService.showPerson(PERSON_ID))
+    }
+
     @Test
     fun showPeople_peopleExist_peopleReturned() {
         every {
@@ -262,6 +371,120 @@ class PersonServiceTest {
         }
     }
 
+    @Test
+    fun showPeoplePageByCursor_countUnknown_totalReadWithPageAndCounterInitialized() {
+        val peoplePage = PeoplePage(PEOPLE, 1, null, null).withTotal(PEOPLE.size, 10)
+        every {
+            personRepository.findPeoplePage(null, 10, "name", false, true)
+        } returns peoplePage
+
+        val foundPage = personService.showPeoplePageByCursor(null, 10, "name", false)
+
+        assertEquals(peoplePage, foundPage)
+        assertEquals(PEOPLE.size, personService.countPeople())
+        verify(exactly = 0) { personRepository.count() }
+    }
+
+    @Test
+    fun showPeoplePageByCursor_countKnown_totalTakenFromCounter() {
+        every { personRepository.count() } returns 25
+        every {
+            personRepository.findPeoplePage(null, 10, "name", false, false)
+        } returns PeoplePage(PEOPLE, 1, null, null)
+        personService.countPeople()
+
+        val foundPage = personService.showPeoplePageByCursor(null, 10, "name", false)
+
+        assertEquals(25, foundPage.total)
+        assertEquals(3, foundPage.pages)
+        verify(exactly = 1) { personRepository.count() }
+    }
+
+    @Test
+    fun showPeoplePageByCursor_cursorGiven_cursorDecodedAndPassed() {
+        val cursor = PageCursor("name", false, 2, PERSON_NAME, PERSON_ID, false)
+        val peoplePage = PeoplePage(listOf(PERSON_2), 2, null, null).withTotal(2, 1)
+        every {
+            personRepository.findPeoplePage(cursor, 1, "name", false, true)
+        } returns peoplePage
+
+        val foundPage = personService.showPeoplePageByCursor(cursor.encode(), 1, "name", false)
+
+        assertEquals(peoplePage, foundPage)
+    }
+
+    @Test
+    fun showPeoplePageByCursor_cursorOfAnotherSortOrder_firstPageRequested() {
+        val cursor = PageCursor("surname", false, 2, PERSON_SURNAME, PERSON_ID, false)
+        every {
+            personRepository.findPeoplePage(null, 10, "name", false, true)
+        } returns PeoplePage(PEOPLE, 1, null, null).withTotal(PEOPLE.size, 10)
+
+        personService.showPeoplePageByCursor(cursor.encode(), 10, "name", false)
+
+        verify {
+            personRepository.findPeoplePage(null, 10, "name", false, true)
+        }
+    }
+
+    @Test
+    fun showPeoplePageByCursor_samePageTwice_repositoryQueriedOnce() {
+        every {
+            personRepository.findPeoplePage(null, 10, "name", false, true)
+        } returns PeoplePage(PEOPLE, 1, null, null).withTotal(PEOPLE.size, 10)
+
+        personService.showPeoplePageByCursor(null, 10, "name", false)
+        val foundPage = personService.showPeoplePageByCursor(null, 10, "name", false)
+
+        assertEquals(PEOPLE, foundPage.people)
+        verify(exactly = 1) {
+            personRepository.findPeoplePage(null, 10, "name", false, true)
+        }
+    }
+
+    @Test
+    fun showPeoplePageByCursor_afterSave_pageLoadedAgain() {
+        val newPerson = Person(name = "Patrick", surname = "Brown", email = "patrick_brown@email.com", logoId = 3)
+        every {
+            personRepository.findPeoplePage(null, 10, "name", false, true)
+        } returns PeoplePage(PEOPLE, 1, null, null).withTotal(PEOPLE.size, 10)
+        every {
+            personRepository.findPeoplePage(null, 10, "name", false, false)
+        } returns PeoplePage(PEOPLE + newPerson, 1, null, null)
+        every {
+            personRepository.save(any())
+        } returns PERSON_ID
+
+        personService.showPeoplePageByCursor(null, 10, "name", false)
+        personService.savePerson(newPerson)
+        val foundPage = personService.showPeoplePageByCursor(null, 10, "name", false)
+
+        assertEquals(PEOPLE + newPerson, foundPage.people)
+        assertEquals(3, foundPage.total)
+    }
+
+    @Test
+    fun showPeoplePageByCursor_differentSortOrders_cachedSeparately() {
+        every {
+            personRepository.findPeoplePage(null, 10, any(), any(), true)
+        } returns PeoplePage(PEOPLE, 1, null, null).withTotal(PEOPLE.size, 10)
+        every {
+            personRepository.findPeoplePage(null, 10, any(), any(), false)
+        } returns PeoplePage(PEOPLE.reversed(), 1, null, null)
+
+        personService.showPeoplePageByCursor(null, 10, "name", false)
+        val reversedPage = personService.showPeoplePageByCursor(null, 10, "name", true)
+
+        assertEquals(PEOPLE.reversed(), reversedPage.people)
+    }
+
+    @Test
+    fun showPeoplePageByCursor_malformedCursor_exceptionThrown() {
+        assertThrows<InvalidPageCursorException> {
+            personService.showPeoplePageByCursor("not-a-cursor", 10, "name", false)
+        }
+    }
+
     @Test
     fun countPeople_peopleExist_correctCountReturned() {
         val count = PEOPLE.size
@@ -291,6 +514,48 @@ class PersonServiceTest {
         assertEquals(0, peopleCount)
     }
 
+    @Test
+    fun countPeople_calledTwice_repositoryCountedOnce() {
+        every {
+            personRepository.count()
+        } returns PEOPLE.size
+
+        personService.countPeople()
+        val peopleCount = personService.countPeople()
+
+        verify(exactly = 1) {
+            personRepository.count()
+        }
+        assertEquals(PEOPLE.size, peopleCount)
+    }
+
+    @Test
+    fun countPeople_afterSaveAndDelete_countMaintainedWithoutQuery() {
+        every { personRepository.count() } returns 5
+        every { personRepository.save(any()) } answers { firstArg<Person>().id }
+        every { personRepository.deleteById(any()) } returns Unit
+        personService.countPeople()
+
+        personService.savePerson(PERSON)
+        personService.savePerson(PERSON_2)
+        personService.deletePerson(PERSON_ID)
+
+        assertEquals(6, personService.countPeople())
+        verify(exactly = 1) { personRepository.count() }
+    }
+
+    @Test
+    fun countPeople_afterDeleteAll_zeroReturnedWithoutQuery() {
+        every { personRepository.count() } returns 5
+        every { personRepository.deleteAll() } returns Unit
+        personService.countPeople()
+
+        personService.deleteAllPeople()
+
+        assertEquals(0, personService.countPeople())
+        verify(exactly = 1) { personRepository.count() }
+    }
+
     @Test
     fun updatePerson_personInfoIsGiven_personUpdated() {
         val updatedPerson = Person(id = 3,
@@ -310,6 +575,19 @@ class PersonServiceTest {
         }
     }
 
+    @Test
+    fun updatePerson_personUpdated_rowVersionBumpedAndOtherRowsKept() {
+        every {
+            personRepository.update(any(), any())
+        } returns Unit
+        val otherRowTag = dataVersion.etag(PERSON_ID + 1)
+
+        personService.updatePerson(Person(PERSON_ID, "Patrick", "Smith", "patrick_smith@email.com", 3), PERSON_ID)
+
+        assertEquals(dataVersion.get(), dataVersion.get(PERSON_ID))
+        assertEquals(otherRowTag, dataVersion.etag(PERSON_ID + 1))
+    }
+
     @Test
     fun updatePerson_personDoesNotExist_exceptionThrown() {
         val updatedPerson = Person(
@@ -352,19 +630,136 @@ class PersonServiceTest {
         }
     }
 
+    @Test
+    fun exportPeopleCsv_peopleStreamed_headerAndRowsWritten() {
+        every {
+            personRepository.streamAll(any())
+        } answers {
+            PEOPLE.forEach { firstArg<Consumer<Person>>().accept(it) }
+        }
+        val out = StringWriter()
+
+        personService.exportPeopleCsv(out)
+
+        assertEquals(
+            "id,name,surname,email,logoId\r\n" +
+                "1,Adam,Smith,adam_smith@email.com,1\r\n" +
+                "2,Eva,Smith,eva_smith@email.com,2\r\n",
+            out.toString()
+        )
+        verify(exactly = 0) { personRepository.findAll() }
+    }
+
+    @Test
+    fun exportPeopleCsv_writerFails_ioExceptionThrown() {
+        every {
+            personRepository.streamAll(any())
+        } answers {
+            PEOPLE.forEach { firstArg<Consumer<Person>>().accept(it) }
+        }
+        val failing = object : Writer() {
+            override fun write(cbuf: CharArray, off: Int, len: Int) = throw IOException("Broken pipe")
+            override fun flush() {}
+            override fun close() {}
+        }
+
+        assertThrows<IOException> { personService.exportPeopleCsv(failing) }
+    }
+
     @Test
     fun createRandomPeople_functionIsCalled_peopleCreated() {
         every {
-            generateService.generateRandomPerson()
-        } returns PERSON
+            generateService.generateRandomPeople(10)
+        } returns PEOPLE
         every {
-            personRepository.save(any())
+            personRepository.saveAll(any())
+        } returns Unit
+
+        personService.createRandomPeople(10)
+
+        verify(exactly = 1) { generateService.generateRandomPeople(10) }
+        verify(exactly = 1) { personRepository.saveAll(PEOPLE) }
+        verify(exactly = 0) { personRepository.save(any<Person>()) }
+    }
+
+    @Test
+    fun createRandomPeople_countAboveChunkSize_generatedAndSavedInChunks() {
+        every {
+            generateService.generateRandomPeople(any())
+        } returns PEOPLE
+        every {
+            personRepository.saveAll(any())
         } returns Unit
 
-        personService.createRandomPeople()
+        personService.createRandomPeople(25_000)
+
+        verify(exactly = 2) { generateService.generateRandomPeople(10_000) }
+        verify(exactly = 1) { generateService.generateRandomPeople(5_000) }
+        verify(exactly = 3) { personRepository.saveAll(any()) }
+    }
+
+    @Test
+    fun createRandomPeople_countOutOfRange_exceptionThrown() {
+        assertThrows<IllegalArgumentException> { personService.createRandomPeople(0) }
+        assertThrows<IllegalArgumentException> { personService.createRandomPeople(PersonService.MAX_GENERATED_PEOPLE + 1) }
+    }
+
+    @Test
+    fun savePeople_countKnown_counterIncreasedAndPeopleSearchable() {
+        val newPeople = listOf(
+            Person(name = "Patrick", surname = "Brown", email = "patrick_brown@email.com", logoId = 3),
+            Person(name = "Rose", surname = "Brown", email = "rose_brown@email.com", logoId = 4)
+        )
+        every { personRepository.count() } returns 2
+        every { personRepository.streamAll(any()) } returns Unit
+        every {
+            personRepository.saveAll(any())
+        } answers {
+            firstArg<Collection<Person>>().forEachIndexed { index, person -> person.id = 3 + index }
+        }
+        every { personRepository.findByIds(listOf(3, 4)) } returns newPeople
+        personService.countPeople()
+        personSearchIndex.rebuild()
 
-        verify(exactly = 10) { generateService.generateRandomPerson() }
-        verify(exactly = 10) { personRepository.save(any<Person>()) }
+        personService.savePeople(newPeople)
+
+        assertEquals(4, personService.countPeople())
+        assertEquals(newPeople, personService.search("brown"))
+    }
+
+    @Test
+    fun showPeopleByIds_idsGiven_peopleLoadedInOneCall() {
+        every {
+            personRepository.findByIds(listOf(PERSON_ID, PERSON_ID_2))
+        } returns PEOPLE
+
+        val foundPeople = personService.showPeopleByIds(listOf(PERSON_ID, PERSON_ID_2))
+
+        verify(exactly = 1) { personRepository.findByIds(any()) }
+        assertEquals(PEOPLE, foundPeople)
+    }
+
+    @Test
+    fun showPeopleByIds_noIds_repositoryNotQueried() {
+        val foundPeople = personService.showPeopleByIds(listOf())
+
+        verify(exactly = 0) { personRepository.findByIds(any()) }
+        assertEquals(listOf<Person>(), foundPeople)
+    }
+
+    @Test
+    fun deletePeople_idsGiven_counterDecreasedByDeletedRowsAndCacheInvalidated() {
+        every { personRepository.count() } returns 5
+        every { personRepository.deleteByIds(listOf(PERSON_ID, PERSON_ID_2, 999)) } returns 2
+        every { personRepository.findById(PERSON_ID) } returns PERSON andThenThrows PersonNotFoundException(ERROR_MESSAGE)
+        personService.countPeople()
+        personService.showPerson(PERSON_ID)
+
+        val deleted = personService.deletePeople(listOf(PERSON_ID, PERSON_ID_2, 999))
+
+        assertEquals(2, deleted)
+        assertEquals(3, personService.countPeople())
+        assertThrows<PersonNotFoundException> { personService.showPerson(PERSON_ID) }
     }
 
     @Test
@@ -409,4 +804,69 @@ class PersonServiceTest {
         }
         assertEquals(listOf<Person>(), foundPeople)
     }
+
+    @Test
+    fun search_indexLoaded_matchesLoadedByIdsWithoutSearchQuery() {
+        loadSearchIndex(PERSON, PERSON_2)
+        every {
+            personRepository.findByIds(listOf(PERSON_ID_2))
+        } returns listOf(PERSON_2)
+
+        val foundPeople = personService.search("eva smi")
+
+        verify(exactly = 0) { personRepository.search(any()) }
+        assertEquals(listOf(PERSON_2), foundPeople)
+    }
+
+    @Test
+    fun search_indexLoadedAndNothingMatches_repositoryNotQueried() {
+        loadSearchIndex(PERSON, PERSON_2)
+
+        val foundPeople = personService.search("Patrick")
+
+        verify(exactly = 0) { personRepository.findByIds(any()) }
+        assertEquals(listOf<Person>(), foundPeople)
+    }
+
+    @Test
+    fun search_personSavedAfterIndexLoaded_personFound() {
+        loadSearchIndex(PERSON)
+        val newPerson = Person(name = "Patrick", surname = "Brown", email = "patrick_brown@email.com", logoId = 3)
+        every {
+            personRepository.save(any())
+        } answers {
+            firstArg<Person>().id = 3
+            3
+        }
+        every {
+            personRepository.findByIds(listOf(3))
+        } returns listOf(newPerson)
+
+        personService.savePerson(newPerson)
+        val foundPeople = personService.search("patrick")
+
+        assertEquals(listOf(newPerson), foundPeople)
+    }
+
+    @Test
+    fun search_personDeletedAfterIndexLoaded_personNotFound() {
+        loadSearchIndex(PERSON, PERSON_2)
+        every {
+            personRepository.deleteById(PERSON_ID_2)
+        } returns Unit
+
+        personService.deletePerson(PERSON_ID_2)
+        val foundPeople = personService.search("Eva")
+
+        assertEquals(listOf<Person>(), foundPeople)
+    }
+
+    private fun loadSearchIndex(vararg people: Person) {
+        every {
+            personRepository.streamAll(any())
+        } answers {
+            people.forEach { firstArg<Consumer<Person>>().accept(it) }
+        }
+        personSearchIndex.rebuild()
+    }
 }
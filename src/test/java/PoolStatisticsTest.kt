@@ -0,0 +1,68 @@
+import com.mkrasikoff.contactbook.monitoring.PoolStatistics
+import com.zaxxer.hikari.metrics.PoolStats
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class PoolStatisticsTest {
+
+    private lateinit var poolStatistics: PoolStatistics
+
+    @BeforeEach
+    fun setUp() {
+        poolStatistics = PoolStatistics()
+    }
+
+    @Test
+    fun snapshot_noPoolRegistered_onlyCountersReturned() {
+        val stats = poolStatistics.snapshot()
+
+        assertFalse(poolStatistics.isPoolAvailable)
+        assertFalse(stats.containsKey("pool.connections.active"))
+        assertEquals(0L, stats["pool.acquire.count"])
+    }
+
+    @Test
+    fun snapshot_poolRegistered_gaugesReturned() {
+        poolStatistics.create("test-pool", fixedPoolStats(active = 3, idle = 2, waiting = 4))
+
+        val stats = poolStatistics.snapshot()
+
+        assertTrue(poolStatistics.isPoolAvailable)
+        assertEquals(3, stats["pool.connections.active"])
+        assertEquals(2, stats["pool.connections.idle"])
+        assertEquals(5, stats["pool.connections.total"])
+        assertEquals(4, stats["pool.threads.waiting"])
+    }
+
+    @Test
+    fun snapshot_connectionsAcquired_latencyAggregated() {
+        val tracker = poolStatistics.create("test-pool", fixedPoolStats(active = 0, idle = 0, waiting = 0))
+
+        tracker.recordConnectionAcquiredNanos(1_000_000)
+        tracker.recordConnectionAcquiredNanos(3_000_000)
+        tracker.recordConnectionTimeout()
+
+        val stats = poolStatistics.snapshot()
+
+        assertEquals(2L, stats["pool.acquire.count"])
+        assertEquals(2_000L, stats["pool.acquire.avg.micros"])
+        assertEquals(3_000L, stats["pool.acquire.max.micros"])
+        assertEquals(1L, stats["pool.acquire.timeouts"])
+    }
+
+    private fun fixedPoolStats(active: Int, idle: Int, waiting: Int): PoolStats {
+        return object : PoolStats(0) {
+            override fun update() {
+                activeConnections = active
+                idleConnections = idle
+                totalConnections = active + idle
+                pendingThreads = waiting
+                maxConnections = 10
+                minConnections = 2
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import com.mkrasikoff.contactbook.monitoring.QueryMetrics
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class QueryMetricsTest {
+
+    private lateinit var queryMetrics: QueryMetrics
+
+    @BeforeEach
+    fun setUp() {
+        queryMetrics = QueryMetrics()
+    }
+
+    @Test
+    fun snapshot_nothingRecorded_empty() {
+        assertTrue(queryMetrics.snapshot("repository").isEmpty())
+    }
+
+    @Test
+    fun snapshot_callsRecorded_countersAndPercentilesReturned() {
+        for (i in 1..100) {
+            queryMetrics.record("findById", i * 1_000_000L, 1, i == 100)
+        }
+
+        val stats = queryMetrics.snapshot("repository")
+
+        assertEquals(100L, stats["repository.findById.calls"])
+        assertEquals(1L, stats["repository.findById.errors"])
+        assertEquals(100L, stats["repository.findById.rows"])
+        assertEquals(50L, (stats["repository.findById.latency.p50.micros"] as Long) / 1_000)
+        assertEquals(99L, (stats["repository.findById.latency.p99.micros"] as Long) / 1_000)
+        assertEquals(100L, (stats["repository.findById.latency.max.micros"] as Long) / 1_000)
+    }
+
+    @Test
+    fun snapshot_recordedBetweenSnapshots_latenciesAccumulated() {
+        queryMetrics.record("count", 1_000_000, 1, false)
+        queryMetrics.snapshot("repository")
+        queryMetrics.record("count", 9_000_000, 1, false)
+
+        val stats = queryMetrics.snapshot("repository")
+
+        assertEquals(2L, stats["repository.count.calls"])
+        assertEquals(9L, (stats["repository.count.latency.max.micros"] as Long) / 1_000)
+        assertEquals(1L, (stats["repository.count.latency.p50.micros"] as Long) / 1_000)
+    }
+
+    @Test
+    fun snapshot_severalOperations_sortedByName() {
+        queryMetrics.record("search", 1_000, 3, false)
+        queryMetrics.record("count", 1_000, 1, false)
+
+        val names = queryMetrics.snapshot("repository").keys.map { it.split(".")[1] }.distinct()
+
+        assertEquals(listOf("count", "search"), names)
+    }
+}
@@ -0,0 +1,82 @@
+import com.mkrasikoff.contactbook.monitoring.RequestMetrics
+import com.mkrasikoff.contactbook.monitoring.RequestTiming
+import com.mkrasikoff.contactbook.monitoring.RequestTimingFilter
+import com.mkrasikoff.contactbook.monitoring.StatementMetrics
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.springframework.mock.web.MockFilterChain
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.web.servlet.HandlerMapping
+import javax.servlet.http.HttpServlet
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+
+class RequestTimingFilterTest {
+
+    private lateinit var requestMetrics: RequestMetrics
+    private lateinit var filter: RequestTimingFilter
+    private lateinit var request: MockHttpServletRequest
+    private lateinit var response: MockHttpServletResponse
+
+    @BeforeEach
+    fun setUp() {
+        requestMetrics = RequestMetrics()
+        filter = RequestTimingFilter(requestMetrics)
+        request = MockHttpServletRequest("GET", "/people/1")
+        response = MockHttpServletResponse()
+    }
+
+    @Test
+    fun doFilter_bodyWritten_headerSetBeforeBodyAndRouteRecorded() {
+        val statementMetrics = StatementMetrics(-1)
+
+        filter.doFilter(request, response, chain { req, resp ->
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/people/{id}")
+            statementMetrics.record("SELECT * FROM person WHERE id = ?", 2_000_000, 1, false) { "[1]" }
+            resp.writer.write("<html></html>")
+            resp.flushBuffer()
+        })
+
+        val header = response.getHeader(RequestTiming.HEADER)!!
+        val stats = requestMetrics.snapshot()
+        assertTrue(header.startsWith("app;dur="))
+        assertTrue(header.contains("db;dur=2.000;desc=\"1 statements\""))
+        assertEquals(1L, stats["http.GET:/people/{id}.calls"])
+        assertEquals(1L, stats["http.GET:/people/{id}.rows"])
+        assertEquals(2L, (stats["http.GET:/people/{id}.db.latency.max.micros"] as Long) / 1_000)
+    }
+
+    @Test
+    fun doFilter_redirected_headerSet() {
+        filter.doFilter(request, response, chain { _, resp -> resp.sendRedirect("/people") })
+
+        assertTrue(response.getHeader(RequestTiming.HEADER)!!.contains("render;dur="))
+    }
+
+    @Test
+    fun doFilter_handlerFailed_recordedAsErrorOfUnmatchedRoute() {
+        assertThrows<IllegalStateException> {
+            filter.doFilter(request, response, chain { _, _ -> throw IllegalStateException("Broken") })
+        }
+
+        assertEquals(1L, requestMetrics.snapshot()["http.unmatched.errors"])
+    }
+
+    @Test
+    fun doFilter_requestFinished_timingUnbound() {
+        filter.doFilter(request, response, chain { _, _ -> assertTrue(RequestTiming.current() != null) })
+
+        assertNull(RequestTiming.current())
+    }
+
+    private fun chain(handler: (HttpServletRequest, HttpServletResponse) -> Unit): MockFilterChain {
+        return MockFilterChain(object : HttpServlet() {
+            override fun service(req: HttpServletRequest, resp: HttpServletResponse) = handler(req, resp)
+        })
+    }
+}
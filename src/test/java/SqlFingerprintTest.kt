@@ -0,0 +1,36 @@
+import com.mkrasikoff.contactbook.monitoring.SqlFingerprint
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class SqlFingerprintTest {
+
+    @Test
+    fun of_literals_replacedWithPlaceholders() {
+        val fingerprint = SqlFingerprint.of("SELECT * FROM person WHERE name = 'O''Brien' AND logoId = 3 LIMIT 10.5")
+
+        assertEquals("SELECT * FROM person WHERE name = ? AND logoId = ? LIMIT ?", fingerprint)
+    }
+
+    @Test
+    fun of_digitsInIdentifiers_kept() {
+        val fingerprint = SqlFingerprint.of("SELECT col1 FROM table_2 t2 WHERE t2.id = 7")
+
+        assertEquals("SELECT col1 FROM table_2 t2 WHERE t2.id = ?", fingerprint)
+    }
+
+    @Test
+    fun of_whitespace_collapsed() {
+        val fingerprint = SqlFingerprint.of("  SELECT id\n\tFROM   person\n")
+
+        assertEquals("SELECT id FROM person", fingerprint)
+    }
+
+    @Test
+    fun of_placeholderListsOfDifferentLengths_sameFingerprint() {
+        val two = SqlFingerprint.of("DELETE FROM person WHERE id IN (?, ?)")
+        val five = SqlFingerprint.of("DELETE FROM person WHERE id IN (1,2,3,4,5)")
+
+        assertEquals("DELETE FROM person WHERE id IN (?, ...)", two)
+        assertEquals(two, five)
+    }
+}
@@ -0,0 +1,132 @@
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.mockk.verifyOrder
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import com.mkrasikoff.contactbook.exceptions.MigrationFailedException
+import com.mkrasikoff.contactbook.migrations.SchemaMigrator
+import com.mkrasikoff.contactbook.models.Person
+import com.mkrasikoff.contactbook.repos.PersonRepository
+import com.mkrasikoff.contactbook.search.PersonSearchIndex
+import com.mkrasikoff.contactbook.services.GenerateService
+import com.mkrasikoff.contactbook.services.PersonService
+import com.mkrasikoff.contactbook.startup.StartupPhases
+import com.mkrasikoff.contactbook.startup.StartupPhases.State
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class StartupPhasesTest {
+
+    private lateinit var schemaMigrator: SchemaMigrator
+    private lateinit var personRepository: PersonRepository
+    private lateinit var personService: PersonService
+    private lateinit var generateService: GenerateService
+    private lateinit var personSearchIndex: PersonSearchIndex
+
+    @BeforeEach
+    fun setUp() {
+        schemaMigrator = mockk(relaxed = true)
+        personRepository = mockk(relaxed = true)
+        personService = mockk(relaxed = true)
+        generateService = mockk(relaxed = true)
+        personSearchIndex = mockk(relaxed = true)
+    }
+
+    @Test
+    fun afterSingletonsInstantiated_emptyTable_migratedThenSeededAndIndexed() {
+        val people = listOf(Person(0, "Name", "Surname", "name@example.com", 1))
+        every { personRepository.isEmpty() } returns true
+        every { generateService.generateRandomPeople(3) } returns people
+        val startupPhases = create(3)
+
+        startupPhases.afterSingletonsInstantiated()
+
+        assertTrue(startupPhases.awaitFinished(5000))
+        assertTrue(startupPhases.isReady)
+        verifyOrder {
+            schemaMigrator.migrate()
+            personRepository.isEmpty()
+            personService.savePeople(people)
+            personSearchIndex.rebuild()
+        }
+    }
+
+    @Test
+    fun afterSingletonsInstantiated_tableNotEmpty_notSeeded() {
+        every { personRepository.isEmpty() } returns false
+        val startupPhases = create(3)
+
+        startupPhases.afterSingletonsInstantiated()
+
+        assertTrue(startupPhases.awaitFinished(5000))
+        assertEquals(State.DONE, startupPhases.getState(StartupPhases.PHASE_SEED))
+        verify(exactly = 0) { personService.savePeople(any()) }
+    }
+
+    @Test
+    fun afterSingletonsInstantiated_seedingRunning_migratedButNotReady() {
+        val seeding = CountDownLatch(1)
+        every { personRepository.isEmpty() } answers { seeding.await(5, TimeUnit.SECONDS); false }
+        val startupPhases = create(3)
+
+        startupPhases.afterSingletonsInstantiated()
+
+        assertEquals(State.DONE, startupPhases.getState(StartupPhases.PHASE_MIGRATE))
+        assertFalse(startupPhases.isReady)
+        seeding.countDown()
+        assertTrue(startupPhases.awaitFinished(5000))
+        assertTrue(startupPhases.isReady)
+    }
+
+    @Test
+    fun afterSingletonsInstantiated_migrationFailed_exceptionThrownAndPhaseFailed() {
+        every { schemaMigrator.migrate() } throws MigrationFailedException("Broken migration")
+        val startupPhases = create(3)
+
+        assertThrows<MigrationFailedException> { startupPhases.afterSingletonsInstantiated() }
+
+        assertEquals(State.FAILED, startupPhases.getState(StartupPhases.PHASE_MIGRATE))
+        assertEquals("Broken migration", startupPhases.snapshot()["startup.migrate.error"])
+        assertFalse(startupPhases.isReady)
+    }
+
+    @Test
+    fun afterSingletonsInstantiated_searchIndexFailed_stillReady() {
+        every { personSearchIndex.rebuild() } throws IllegalStateException("Index failed")
+        val startupPhases = create(0)
+
+        startupPhases.afterSingletonsInstantiated()
+
+        assertTrue(startupPhases.awaitFinished(5000))
+        assertEquals(State.FAILED, startupPhases.getState(StartupPhases.PHASE_SEARCH_INDEX))
+        assertTrue(startupPhases.isReady)
+        assertTrue(startupPhases.snapshot().containsKey("startup.seed.ms"))
+        verify(exactly = 0) { personRepository.isEmpty() }
+    }
+
+    @Test
+    fun afterSingletonsInstantiated_seedingFailedOnce_indexLoadedAndSeedingRetried() {
+        every { personRepository.isEmpty() } throws IllegalStateException("Connection refused") andThen false
+        val startupPhases = create(3)
+
+        startupPhases.afterSingletonsInstantiated()
+
+        assertTrue(startupPhases.awaitFinished(5000))
+        assertTrue(startupPhases.isReady)
+        assertEquals(2, startupPhases.snapshot()["startup.seed.attempts"])
+        assertFalse(startupPhases.snapshot().containsKey("startup.seed.error"))
+        verifyOrder {
+            personRepository.isEmpty()
+            personSearchIndex.rebuild()
+            personRepository.isEmpty()
+        }
+    }
+
+    private fun create(seedCount: Int) =
+        StartupPhases(schemaMigrator, personRepository, personService, generateService, personSearchIndex, seedCount, 10, 40)
+}
@@ -0,0 +1,75 @@
+import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException
+import com.mkrasikoff.contactbook.models.Person
+import com.mkrasikoff.contactbook.monitoring.QueryMetrics
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository
+import com.mkrasikoff.contactbook.repos.TimedPersonRepository
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.springframework.dao.DataAccessResourceFailureException
+import java.util.function.Consumer
+
+class TimedPersonRepositoryTest {
+
+    private lateinit var delegate: JdbcPersonRepository
+    private lateinit var queryMetrics: QueryMetrics
+    private lateinit var personRepository: TimedPersonRepository
+
+    @BeforeEach
+    fun setUp() {
+        delegate = mockk()
+        queryMetrics = QueryMetrics()
+        personRepository = TimedPersonRepository(delegate, queryMetrics)
+    }
+
+    @Test
+    fun search_peopleFound_resultReturnedAndRowsRecorded() {
+        val people = listOf(Person(1, "Name", "Surname", "a@b.com", 1), Person(2, "Name", "Other", "c@d.com", 2))
+        every { delegate.search("Name") } returns people
+
+        val result = personRepository.search("Name")
+
+        val stats = queryMetrics.snapshot("repository")
+        assertEquals(people, result)
+        assertEquals(1L, stats["repository.search.calls"])
+        assertEquals(2L, stats["repository.search.rows"])
+        assertEquals(0L, stats["repository.search.errors"])
+    }
+
+    @Test
+    fun findById_personNotFound_exceptionRethrownAndNotCountedAsError() {
+        every { delegate.findById(1) } throws PersonNotFoundException("Person with id 1 not found.")
+
+        assertThrows<PersonNotFoundException> { personRepository.findById(1) }
+
+        val stats = queryMetrics.snapshot("repository")
+        assertEquals(1L, stats["repository.findById.calls"])
+        assertEquals(0L, stats["repository.findById.errors"])
+    }
+
+    @Test
+    fun count_databaseFailed_exceptionRethrownAndCountedAsError() {
+        every { delegate.count() } throws DataAccessResourceFailureException("Connection refused")
+
+        assertThrows<DataAccessResourceFailureException> { personRepository.count() }
+
+        assertEquals(1L, queryMetrics.snapshot("repository")["repository.count.errors"])
+    }
+
+    @Test
+    fun streamAll_peopleStreamed_streamedRowsRecorded() {
+        every { delegate.streamAll(any()) } answers {
+            val consumer = firstArg<Consumer<Person>>()
+            repeat(3) { consumer.accept(Person(it, "Name", "Surname", "a@b.com", 1)) }
+        }
+        val received = mutableListOf<Person>()
+
+        personRepository.streamAll { received.add(it) }
+
+        assertEquals(3, received.size)
+        assertEquals(3L, queryMetrics.snapshot("repository")["repository.streamAll.rows"])
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import com.mkrasikoff.contactbook.generate.NamePools;
+import com.mkrasikoff.contactbook.generate.PeopleGenerator;
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.migrations.SchemaMigrator;
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
+import com.mkrasikoff.contactbook.repos.PersonRowMapper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * An embedded H2 database with a 'person' table of a given size, shared by the repository benchmarks.
+ *
+ * The table is filled by PeopleGenerator with a fixed seed, so every run measures the same rows. Databases are
+ * kept as files in target/benchmarks, one per table size, and reused by later forks and runs as long as
+ * their row count matches; a large table is generated only once. Delete the directory to start over.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    static final long SEED = 42;
+
+    private static final String DIRECTORY = System.getProperty("benchmark.database-dir", "target/benchmarks");
+    private static final int BATCH_SIZE = 1000;
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int FETCH_SIZE = 1000;
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcPersonRepository personRepository;
+
+    private BenchmarkDatabase(int tableSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:file:./" + DIRECTORY + "/people-" + tableSize + ";DB_CLOSE_ON_EXIT=FALSE");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setPoolName("benchmark-pool");
+        config.setMaximumPoolSize(4);
+
+        this.dataSource = new HikariDataSource(config);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.personRepository = new JdbcPersonRepository(jdbcTemplate, transactionTemplate, BATCH_SIZE, FETCH_SIZE);
+    }
+
+    /**
+     * Opens the database of the given size, creating and filling it if it does not exist yet.
+     * @param tableSize the number of rows of the 'person' table.
+     * @return the open database, to be closed in the tear down of the benchmark.
+     */
+    static BenchmarkDatabase open(int tableSize) {
+        BenchmarkDatabase database = new BenchmarkDatabase(tableSize);
+        new SchemaMigrator(database.jdbcTemplate).migrate();
+
+        if (database.personRepository.count() != tableSize) {
+            database.personRepository.deleteAll();
+            new PeopleGenerator(NamePools.english(), SEED).generate(tableSize, CHUNK_SIZE, 1, database.personRepository::saveAll);
+            database.jdbcTemplate.execute("ANALYZE");
+        }
+        return database;
+    }
+
+    /**
+     * Returns the smallest ID of the table; the rows are inserted by one thread, so their IDs are consecutive.
+     * @return the first ID.
+     */
+    int firstId() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MIN(id), 0) FROM person", Integer.class);
+    }
+
+    /**
+     * Returns the row at the given position of the table ordered by a column and then by ID,
+     * the order of the keyset pages.
+     * @param column the sort column, one of 'id', 'name', 'surname' and 'logoId'.
+     * @param offset the position of the row, from 0.
+     * @return the row.
+     */
+    Person rowAt(String column, int offset) {
+        String sql = "SELECT " + PersonRowMapper.COLUMNS + " FROM person ORDER BY " + column + ", id LIMIT ?, 1";
+        return jdbcTemplate.queryForObject(sql, PersonRowMapper.FULL, offset);
+    }
+
+    JdbcPersonRepository personRepository() {
+        return personRepository;
+    }
+
+    /**
+     * Returns a template whose transactions the writing benchmarks roll back, so the table keeps its size.
+     * @return the transaction template.
+     */
+    TransactionTemplate transactionTemplate() {
+        return transactionTemplate;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
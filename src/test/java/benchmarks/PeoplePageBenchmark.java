@@ -0,0 +1,100 @@
+package benchmarks;
+
+import com.mkrasikoff.contactbook.models.PageCursor;
+import com.mkrasikoff.contactbook.models.PeoplePage;
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares offset pagination (findSpecificPeoplePage) with keyset pagination (findPeoplePage) on an embedded
+ * H2 database of a given size, for every sort column and for pages at the start, in the middle and at the end
+ * of the list.
+ *
+ * Both read the same page: the keyset cursor is built in the setup from the row just before the page,
+ * the way the previous page would have built it. That row is read in the order of the keyset query,
+ * by the sort column and then the ID, so duplicate names or logoIds do not move the cursor off the page boundary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeoplePageBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int tableSize;
+
+    @Param({"id", "name", "surname", "logoId"})
+    private String sort;
+
+    /**
+     * The position of the page in the list, in percent.
+     */
+    @Param({"0", "50", "100"})
+    private int depth;
+
+    private BenchmarkDatabase database;
+    private JdbcPersonRepository personRepository;
+    private int page;
+    private PageCursor cursor;
+
+    @Setup
+    public void setup() {
+        database = BenchmarkDatabase.open(tableSize);
+        personRepository = database.personRepository();
+
+        int pages = PeoplePage.pagesOf(tableSize, PAGE_SIZE);
+        page = Math.max(1, (int) ((long) pages * depth / 100));
+
+        if (page > 1) {
+            Person edge = database.rowAt(sort, (page - 1) * PAGE_SIZE - 1);
+            cursor = new PageCursor(sort, false, page, sortValue(edge), edge.getId(), false);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Person> offsetPage() {
+        return personRepository.findSpecificPeoplePage(page, PAGE_SIZE, sort, false);
+    }
+
+    @Benchmark
+    public PeoplePage keysetPage() {
+        return personRepository.findPeoplePage(cursor, PAGE_SIZE, sort, false, false);
+    }
+
+    @Benchmark
+    public PeoplePage keysetPageWithTotal() {
+        return personRepository.findPeoplePage(cursor, PAGE_SIZE, sort, false, true);
+    }
+
+    private String sortValue(Person person) {
+        switch (sort) {
+            case "name": return person.getName();
+            case "surname": return person.getSurname();
+            case "logoId": return String.valueOf(person.getLogoId());
+            default: return String.valueOf(person.getId());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the substring search of JdbcPersonRepository on an embedded H2 database of a given size,
+ * for queries of different selectivity:
+ * "broad" is two letters found in a large part of the names, "narrow" is the full name of one generated person
+ * and "none" matches no row. Every query scans the whole table, so the selectivity mostly changes
+ * the cost of mapping and transferring the matches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeopleSearchBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int tableSize;
+
+    @Param({"broad", "narrow", "none"})
+    private String selectivity;
+
+    private BenchmarkDatabase database;
+    private JdbcPersonRepository personRepository;
+    private String query;
+
+    @Setup
+    public void setup() {
+        database = BenchmarkDatabase.open(tableSize);
+        personRepository = database.personRepository();
+
+        switch (selectivity) {
+            case "broad":
+                query = "an";
+                break;
+            case "narrow":
+                Person person = personRepository.findById(database.firstId());
+                query = person.getName() + " " + person.getSurname();
+                break;
+            default:
+                query = "qxzj";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Person> search() {
+        return personRepository.search(query);
+    }
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import com.mkrasikoff.contactbook.generate.NamePools;
+import com.mkrasikoff.contactbook.generate.PeopleGenerator;
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single-statement operations of JdbcPersonRepository on an embedded H2 database of a given size.
+ *
+ * The inserts run in a transaction that is rolled back, so the table keeps its size; the rollback is part
+ * of the measured time. findById reads a random existing row on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersonRepositoryBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int tableSize;
+
+    private BenchmarkDatabase database;
+    private JdbcPersonRepository personRepository;
+    private TransactionTemplate transactionTemplate;
+    private SplittableRandom random;
+    private int firstId;
+    private Person newPerson;
+    private List<Person> newPeople;
+
+    @Setup
+    public void setup() {
+        database = BenchmarkDatabase.open(tableSize);
+        personRepository = database.personRepository();
+        transactionTemplate = database.transactionTemplate();
+        random = new SplittableRandom(BenchmarkDatabase.SEED);
+        firstId = database.firstId();
+
+        PeopleGenerator generator = new PeopleGenerator(NamePools.english(), BenchmarkDatabase.SEED + 1);
+        newPerson = generator.generate(0);
+        newPeople = generator.generate(0, BATCH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public int count() {
+        return personRepository.count();
+    }
+
+    @Benchmark
+    public long estimateCount() {
+        return personRepository.estimateCount();
+    }
+
+    @Benchmark
+    public boolean isEmpty() {
+        return personRepository.isEmpty();
+    }
+
+    @Benchmark
+    public Person findById() {
+        return personRepository.findById(firstId + random.nextInt(tableSize));
+    }
+
+    @Benchmark
+    public int save() {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return personRepository.save(newPerson);
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void saveAll() {
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            personRepository.saveAll(newPeople);
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.repos.PersonRowMapper;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of mapping one row of the 'person' table to a Person object.
+ *
+ * The rows come from an in-memory result set, so the numbers contain only the mapping and no database access.
+ * The BeanPropertyRowMapper benchmark creates a new mapper for every result set, as JdbcPersonRepository used to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersonRowMapperBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private SimpleResultSet fullRows;
+    private SimpleResultSet summaryRows;
+
+    @Setup
+    public void setup() {
+        fullRows = new SimpleResultSet();
+        fullRows.addColumn("id", Types.INTEGER, 10, 0);
+        fullRows.addColumn("name", Types.VARCHAR, 30, 0);
+        fullRows.addColumn("surname", Types.VARCHAR, 30, 0);
+        fullRows.addColumn("email", Types.VARCHAR, 50, 0);
+        fullRows.addColumn("logoId", Types.INTEGER, 10, 0);
+        fullRows.setAutoClose(false);
+
+        summaryRows = new SimpleResultSet();
+        summaryRows.addColumn("id", Types.INTEGER, 10, 0);
+        summaryRows.addColumn("name", Types.VARCHAR, 30, 0);
+        summaryRows.addColumn("surname", Types.VARCHAR, 30, 0);
+        summaryRows.addColumn("logoId", Types.INTEGER, 10, 0);
+        summaryRows.setAutoClose(false);
+
+        for (int i = 1; i <= ROWS; i++) {
+            fullRows.addRow(i, "Name" + i, "Surname" + i, "name" + i + ".surname" + i + "@email.com", i % 4 + 1);
+            summaryRows.addRow(i, "Name" + i, "Surname" + i, i % 4 + 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void beanPropertyRowMapperPerQuery(Blackhole blackhole) throws SQLException {
+        mapAll(fullRows, new BeanPropertyRowMapper<>(Person.class), blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void personRowMapperFull(Blackhole blackhole) throws SQLException {
+        mapAll(fullRows, PersonRowMapper.FULL, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void personRowMapperSummary(Blackhole blackhole) throws SQLException {
+        mapAll(summaryRows, PersonRowMapper.SUMMARY, blackhole);
+    }
+
+    private void mapAll(SimpleResultSet rows, RowMapper<Person> mapper, Blackhole blackhole) throws SQLException {
+        rows.beforeFirst();
+        int rowNum = 0;
+        while (rows.next()) {
+            blackhole.consume(mapper.mapRow(rows, rowNum++));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
+import com.mkrasikoff.contactbook.search.PersonSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the search through PersonSearchIndex on the same databases and queries as PeopleSearchBenchmark,
+ * so the two can be compared row by row.
+ *
+ * "index" only looks up the matching IDs in the trigram index. "indexThenLoad" also loads the matches
+ * from the repository, as PersonService does, and is the counterpart of the LIKE scan of PeopleSearchBenchmark.
+ * The index is loaded once in the setup and is not measured; for the largest tables it needs a heap
+ * of several gigabytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersonSearchIndexBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int tableSize;
+
+    @Param({"broad", "narrow", "none"})
+    private String selectivity;
+
+    private BenchmarkDatabase database;
+    private JdbcPersonRepository personRepository;
+    private PersonSearchIndex personSearchIndex;
+    private String query;
+
+    @Setup
+    public void setup() {
+        database = BenchmarkDatabase.open(tableSize);
+        personRepository = database.personRepository();
+        personSearchIndex = new PersonSearchIndex(personRepository);
+        personSearchIndex.rebuild();
+
+        switch (selectivity) {
+            case "broad":
+                query = "an";
+                break;
+            case "narrow":
+                Person person = personRepository.findById(database.firstId());
+                query = person.getName() + " " + person.getSurname();
+                break;
+            default:
+                query = "qxzj";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public int[] index() {
+        return personSearchIndex.search(query);
+    }
+
+    @Benchmark
+    public List<Person> indexThenLoad() {
+        int[] ids = personSearchIndex.search(query);
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
+        return personRepository.findByIds(Arrays.stream(ids).boxed().collect(Collectors.toList()));
+    }
+}
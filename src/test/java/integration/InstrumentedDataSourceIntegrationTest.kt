@@ -0,0 +1,96 @@
+package integration
+
+import com.mkrasikoff.contactbook.monitoring.InstrumentedDataSource
+import com.mkrasikoff.contactbook.monitoring.StatementMetrics
+import org.h2.jdbcx.JdbcDataSource
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.springframework.dao.DataAccessException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.core.RowCallbackHandler
+
+/**
+ * Runs statements through an InstrumentedDataSource on top of a plain H2 DataSource and checks
+ * what is reported to StatementMetrics.
+ */
+class InstrumentedDataSourceIntegrationTest {
+
+    private lateinit var target: JdbcDataSource
+    private lateinit var statementMetrics: StatementMetrics
+    private lateinit var jdbcTemplate: JdbcTemplate
+
+    @BeforeEach
+    fun setUp() {
+        target = JdbcDataSource()
+        target.setURL("jdbc:h2:mem:instrumented;DB_CLOSE_DELAY=-1")
+        statementMetrics = StatementMetrics(-1)
+        jdbcTemplate = JdbcTemplate(InstrumentedDataSource(target, statementMetrics))
+        jdbcTemplate.execute("DROP TABLE IF EXISTS item")
+        jdbcTemplate.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(50))")
+    }
+
+    @Test
+    fun query_rowsRead_callAndRowsRecordedUnderFingerprint() {
+        jdbcTemplate.update("INSERT INTO item VALUES (1, 'a'), (2, 'b'), (3, 'c')")
+
+        val names = jdbcTemplate.queryForList("SELECT name FROM item WHERE id > ?", String::class.java, 1)
+
+        val id = idOf("SELECT name FROM item WHERE id > ?")
+        val stats = statementMetrics.snapshot()
+        assertEquals(listOf("b", "c"), names)
+        assertEquals(1L, stats["sql.$id.calls"])
+        assertEquals(2L, stats["sql.$id.rows"])
+        assertEquals(3L, stats["sql.${idOf("INSERT INTO item VALUES (?, ...), (?, ...), (?, ...)")}.rows"])
+    }
+
+    @Test
+    fun query_rowsConsumedSlowly_cursorTimeRecordedSeparately() {
+        jdbcTemplate.update("INSERT INTO item VALUES (1, 'a'), (2, 'b'), (3, 'c')")
+
+        jdbcTemplate.query("SELECT name FROM item ORDER BY id", RowCallbackHandler { Thread.sleep(50) })
+
+        val id = idOf("SELECT name FROM item ORDER BY id")
+        val stats = statementMetrics.snapshot()
+        assertTrue(stats["sql.$id.latency.max.micros"]!!.toLong() < 100_000)
+        assertTrue(stats["sql.$id.cursor.latency.max.micros"]!!.toLong() >= 150_000)
+        assertEquals(3L, stats["sql.$id.cursor.rows"])
+    }
+
+    @Test
+    fun batchUpdate_rowsInserted_changedRowsRecorded() {
+        val rows = (1..5).map { arrayOf<Any>(it, "name$it") }
+
+        jdbcTemplate.batchUpdate("INSERT INTO item (id, name) VALUES (?, ?)", rows)
+
+        val id = idOf("INSERT INTO item (id, name) VALUES (?, ...)")
+        val stats = statementMetrics.snapshot()
+        assertEquals(1L, stats["sql.$id.calls"])
+        assertEquals(5L, stats["sql.$id.rows"])
+    }
+
+    @Test
+    fun update_statementFailed_errorRecorded() {
+        jdbcTemplate.update("INSERT INTO item VALUES (1, 'a')")
+
+        assertThrows<DataAccessException> { jdbcTemplate.update("INSERT INTO item VALUES (?, ?)", 1, "b") }
+
+        assertEquals(1L, statementMetrics.snapshot()["sql.${idOf("INSERT INTO item VALUES (?, ...)")}.errors"])
+    }
+
+    @Test
+    fun unwrap_driverClassRequested_targetReturned() {
+        val connectionClass = target.connection.use { it.javaClass }
+
+        val unwrapped = jdbcTemplate.execute<Any> { connection: java.sql.Connection -> connection.unwrap(connectionClass) }
+
+        assertSame(connectionClass, unwrapped!!.javaClass)
+        assertTrue(jdbcTemplate.dataSource!!.isWrapperFor(JdbcDataSource::class.java))
+    }
+
+    private fun idOf(fingerprint: String): String =
+            statementMetrics.fingerprints().entries.first { it.value == fingerprint }.key
+}
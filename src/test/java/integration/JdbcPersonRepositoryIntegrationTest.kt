@@ -11,12 +11,18 @@ import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.extension.ExtendWith
 import org.junit.jupiter.api.function.Executable
 import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.dao.DataAccessException
 import org.springframework.jdbc.core.JdbcTemplate
 import org.springframework.test.context.ContextConfiguration
 import org.springframework.test.context.junit.jupiter.SpringExtension
+import com.mkrasikoff.contactbook.exceptions.PersonAlreadyExistsException
 import com.mkrasikoff.contactbook.exceptions.PersonNotFoundException
 import com.mkrasikoff.contactbook.exceptions.InvalidSortParameterException
+import com.mkrasikoff.contactbook.models.PageCursor
+import com.mkrasikoff.contactbook.models.PeoplePage
 import com.mkrasikoff.contactbook.models.Person
+import com.mkrasikoff.contactbook.models.PersonFilter
+import com.mkrasikoff.contactbook.models.PersonPatch
 import com.mkrasikoff.contactbook.repos.JdbcPersonRepository
 
 @ExtendWith(SpringExtension::class)
@@ -75,6 +81,52 @@ class JdbcPersonRepositoryIntegrationTest {
         assertTrue(persons.contains(secondPerson))
     }
 
+    @Test
+    fun streamAll_twoPersonsCreated_allPersonsPassedToConsumer() {
+        val secondPerson = createPersonEva()
+        insertPerson(secondPerson)
+        val streamed = mutableListOf<Person>()
+
+        personRepository.streamAll { streamed.add(it) }
+
+        assertEquals(listOf(person, secondPerson), streamed.sortedBy { it.id })
+    }
+
+    @Test
+    fun streamAll_moreRowsThanFetchSize_allPersonsStreamedInIdOrder() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        listOf(5, 3, 1, 4, 2).forEach {
+            insertPerson(Person(id = it, name = "Person$it", surname = "Surname$it", email = "person$it@email.com", logoId = 1))
+        }
+        val streamed = mutableListOf<Int>()
+
+        personRepository.streamAll { streamed.add(it.id) }
+
+        assertEquals(listOf(1, 2, 3, 4, 5), streamed)
+    }
+
+    @Test
+    fun findByIds_existingAndMissingIds_existingPersonsReturnedOrderedById() {
+        val secondPerson = createPersonEva()
+        insertPerson(secondPerson)
+
+        val persons = personRepository.findByIds(listOf(secondPerson.id, ID_NONEXISTENT_USER, person.id))
+
+        assertEquals(listOf(person, secondPerson), persons)
+    }
+
+    @Test
+    fun findByIds_moreIdsThanOneChunk_allPersonsReturned() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        (1..1200).forEach {
+            insertPerson(Person(id = it, name = "Person$it", surname = "Surname$it", email = "person$it@email.com", logoId = 1))
+        }
+
+        val persons = personRepository.findByIds((1..1200).toList())
+
+        assertEquals((1..1200).toList(), persons.map { it.id })
+    }
+
     @Test
     fun findSpecificPeoplePage_databaseWithMoreThanTenUsersGiven_returnsOnlyPartOfThem() {
         jdbcTemplate.update(QUERY_DELETE_PEOPLE)
@@ -163,6 +215,107 @@ class JdbcPersonRepositoryIntegrationTest {
         assertEquals(insertedPeople.sortedByDescending { it.name }, pageSortedByName, "Page should be back ordered by name, case insensitive")
     }
 
+    @Test
+    fun findPeoplePage_walkForwardByEverySortColumn_returnsAllPeopleInOrderWithoutDuplicates() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        val insertedPeople = (1..12).map {
+            Person(id = it, name = "Person${it % 5}", surname = "Surname$it", email = "person$it@email.com", logoId = it % 3).apply { insertPerson(this) }
+        }
+        val expectedOrders = mapOf<String, Comparator<Person>>(
+            "id" to compareBy { it.id },
+            "name" to compareBy<Person> { it.name }.thenBy { it.id },
+            "surname" to compareBy<Person> { it.surname }.thenBy { it.id },
+            "logoId" to compareBy<Person> { it.logoId }.thenBy { it.id }
+        )
+
+        expectedOrders.forEach { (sort, comparator) ->
+            listOf(false, true).forEach { reverse ->
+                val walked = walkForward(5, sort, reverse)
+                val sorted = if (reverse) insertedPeople.sortedWith(comparator.reversed()) else insertedPeople.sortedWith(comparator)
+                val expected = sorted.map { it.copy(email = null) }
+
+                assertEquals(expected, walked, "Keyset pages should follow sort '$sort' (reverse = $reverse)")
+            }
+        }
+    }
+
+    @Test
+    fun findPeoplePage_walkBackFromLastPage_returnsSamePages() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        (1..12).forEach {
+            insertPerson(Person(id = it, name = "Person${it % 4}", surname = "Surname$it", email = "person$it@email.com", logoId = 1))
+        }
+        val firstPage = personRepository.findPeoplePage(null, 5, "name", false, false)
+        val secondPage = personRepository.findPeoplePage(PageCursor.decode(firstPage.nextCursor!!), 5, "name", false, false)
+        val thirdPage = personRepository.findPeoplePage(PageCursor.decode(secondPage.nextCursor!!), 5, "name", false, false)
+
+        val backToSecond = personRepository.findPeoplePage(PageCursor.decode(thirdPage.previousCursor!!), 5, "name", false, false)
+        val backToFirst = personRepository.findPeoplePage(PageCursor.decode(backToSecond.previousCursor!!), 5, "name", false, false)
+
+        assertAll("Keyset navigation",
+            Executable { assertEquals(2, thirdPage.people.size, "Last page should have the remaining people") },
+            Executable { assertEquals(null, thirdPage.nextCursor, "Last page should not have a next cursor") },
+            Executable { assertEquals(secondPage.people, backToSecond.people, "Going back should return the same page") },
+            Executable { assertEquals(2, backToSecond.page, "Going back should restore the page number") },
+            Executable { assertEquals(firstPage.people, backToFirst.people, "Going back should reach the first page") },
+            Executable { assertEquals(null, backToFirst.previousCursor, "First page should not have a previous cursor") }
+        )
+    }
+
+    @Test
+    fun findPeoplePage_sortColumnContainsNulls_nullsOrderedFirstAndNothingSkipped() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        val insertedPeople = (1..7).map {
+            Person(id = it, name = "Person$it", surname = "Surname$it", email = "person$it@email.com", logoId = if (it % 2 == 0) null else it).apply { insertPerson(this) }
+        }
+        val ascending = compareBy<Person, Int?>(nullsFirst()) { it.logoId }.thenBy { it.id }
+
+        assertAll("Nulls",
+            Executable { assertEquals(insertedPeople.sortedWith(ascending).map { it.copy(email = null) }, walkForward(2, "logoId", false)) },
+            Executable { assertEquals(insertedPeople.sortedWith(ascending.reversed()).map { it.copy(email = null) }, walkForward(2, "logoId", true)) }
+        )
+    }
+
+    @Test
+    fun findPeoplePage_withTotal_totalAndPagesReturnedWithRows() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        (1..12).forEach {
+            insertPerson(Person(id = it, name = "Person$it", surname = "Surname$it", email = "person$it@email.com", logoId = 1))
+        }
+
+        val firstPage = personRepository.findPeoplePage(null, 5, "id", false, true)
+        val lastPage = personRepository.findPeoplePage(PageCursor("id", false, 3, "10", 10, false), 5, "id", false, true)
+
+        assertAll("Total",
+            Executable { assertEquals(12, firstPage.total, "Total should count all people") },
+            Executable { assertEquals(3, firstPage.pages, "Page count should be derived from the total") },
+            Executable { assertEquals(12, lastPage.total, "Total should not depend on the cursor") },
+            Executable { assertEquals(2, lastPage.people.size, "Last page should have the remaining people") }
+        )
+    }
+
+    @Test
+    fun findPeoplePage_withTotalBeyondLastPage_totalStillReturned() {
+        val emptyPage = personRepository.findPeoplePage(PageCursor("id", false, 2, "1", 1, false), 5, "id", false, true)
+
+        assertTrue(emptyPage.people.isEmpty())
+        assertEquals(1, emptyPage.total)
+    }
+
+    @Test
+    fun findPeoplePage_withoutTotal_totalUnknown() {
+        val page = personRepository.findPeoplePage(null, 5, "id", false, false)
+
+        assertEquals(PeoplePage.UNKNOWN, page.total)
+    }
+
+    @Test
+    fun findPeoplePage_givenInvalidSortParameter_throwsInvalidSortParameterException() {
+        assertThrows(InvalidSortParameterException::class.java) {
+            personRepository.findPeoplePage(null, 10, "invalidSortParameter", false, false)
+        }
+    }
+
     @Test
     fun count_whenPeopleInDatabase_returnsCorrectCount() {
         val personCount = personRepository.count()
@@ -170,6 +323,27 @@ class JdbcPersonRepositoryIntegrationTest {
         assertEquals(1, personCount, "Should return the correct count of people in database")
     }
 
+    @Test
+    fun isEmpty_peopleInDatabase_false() {
+        assertEquals(false, personRepository.isEmpty())
+    }
+
+    @Test
+    fun isEmpty_noPeopleInDatabase_true() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+
+        assertTrue(personRepository.isEmpty())
+    }
+
+    @Test
+    fun estimateCount_whenPeopleInDatabase_returnsEstimateFromStatistics() {
+        insertPerson(createPersonEva())
+
+        val estimate = personRepository.estimateCount()
+
+        assertEquals(2L, estimate, "H2 should report the row estimate of the person table")
+    }
+
     @Test
     fun save_givenValidPerson_returnsSavedPerson() {
         val newPerson = createPersonEva()
@@ -183,6 +357,100 @@ class JdbcPersonRepositoryIntegrationTest {
         assertPerson(newPerson, savedPerson)
     }
 
+    @Test
+    fun save_givenValidPerson_generatedIdSetOnPerson() {
+        val newPerson = Person(name = "Eva", surname = "Smith", email = "eva_smith@email.com", logoId = 2)
+
+        personRepository.save(newPerson)
+
+        assertTrue(newPerson.id > 0, "Generated id should be set")
+        assertPerson(newPerson, personRepository.findById(newPerson.id))
+    }
+
+    @Test
+    fun save_givenValidPerson_generatedIdReturned() {
+        val newPerson = Person(name = "Eva", surname = "Smith", email = "eva_smith@email.com", logoId = 2)
+
+        val id = personRepository.save(newPerson)
+
+        assertEquals(newPerson.id, id)
+    }
+
+    @Test
+    fun save_givenPersonWithExistingId_throwsPersonAlreadyExistsException() {
+        val duplicate = Person(id = person.id, name = "Eva", surname = "Smith", email = "eva_smith@email.com", logoId = 2)
+
+        val exception = assertThrows(PersonAlreadyExistsException::class.java) {
+            personRepository.save(duplicate)
+        }
+
+        assertEquals("Person with id ${person.id} already exists.", exception.message)
+        assertPerson(person, personRepository.findById(person.id))
+    }
+
+    @Test
+    fun save_givenPersonWithNewId_savedWithThatId() {
+        val newPerson = Person(id = 500, name = "Eva", surname = "Smith", email = "eva_smith@email.com", logoId = 2)
+
+        val id = personRepository.save(newPerson)
+
+        assertEquals(500, id)
+        assertPerson(newPerson, personRepository.findById(500))
+    }
+
+    @Test
+    fun save_givenPersonWithoutLogo_savedWithNullLogo() {
+        val newPerson = Person(name = "Eva", surname = "Smith", email = "eva_smith@email.com", logoId = null)
+
+        personRepository.save(newPerson)
+
+        assertPerson(newPerson, personRepository.findById(newPerson.id))
+    }
+
+    @Test
+    fun saveAll_somePeopleWithoutLogo_allSaved() {
+        val newPeople = listOf(Person(name = "Eva", surname = "Smith", email = "eva_smith@email.com", logoId = null),
+            Person(name = "Patrick", surname = "Brown", email = "patrick_brown@email.com", logoId = 3))
+
+        personRepository.saveAll(newPeople)
+
+        assertPerson(newPeople[0], personRepository.findById(newPeople[0].id))
+        assertPerson(newPeople[1], personRepository.findById(newPeople[1].id))
+    }
+
+    @Test
+    fun saveAll_morePeopleThanBatchSize_allSavedWithGeneratedIds() {
+        val newPeople = (1..5).map { Person(name = "Name$it", surname = "Surname$it", email = "person$it@email.com", logoId = 1) }
+
+        personRepository.saveAll(newPeople)
+
+        assertEquals(6, personRepository.count())
+        assertEquals(5, newPeople.map { it.id }.distinct().size)
+        newPeople.forEach { assertPerson(it, personRepository.findById(it.id)) }
+    }
+
+    @Test
+    fun saveAll_rowFailsInLaterBatch_nothingSaved() {
+        val newPeople = listOf(
+            Person(name = "Eva", surname = "Smith", email = "eva_smith@email.com", logoId = 2),
+            Person(name = "Patrick", surname = "Brown", email = "patrick_brown@email.com", logoId = 3),
+            Person(name = "X".repeat(100), surname = "Brown", email = "x_brown@email.com", logoId = 3)
+        )
+
+        assertThrows(DataAccessException::class.java) {
+            personRepository.saveAll(newPeople)
+        }
+
+        assertEquals(1, personRepository.count())
+    }
+
+    @Test
+    fun saveAll_emptyCollection_nothingSaved() {
+        personRepository.saveAll(listOf())
+
+        assertEquals(1, personRepository.count())
+    }
+
     @Test
     fun update_givenExistingPerson_personUpdated() {
         person.name = "Updated name"
@@ -204,6 +472,79 @@ class JdbcPersonRepositoryIntegrationTest {
         assertEquals(exception.message, MESSAGE_PERSON_NOT_FOUND)
     }
 
+    @Test
+    fun updateAll_patchesWithDifferentFields_onlyChangedFieldsUpdated() {
+        val secondPerson = createPersonEva()
+        insertPerson(secondPerson)
+
+        val updatedRows = personRepository.updateAll(listOf(
+            PersonPatch(id = person.id, logoId = 4),
+            PersonPatch(id = secondPerson.id, name = "Eve", emailDomain = "example.com"),
+            PersonPatch(id = ID_NONEXISTENT_USER, logoId = 4)
+        ))
+
+        assertEquals(listOf(1, 1, 0), updatedRows.toList())
+        assertPerson(person.copy(logoId = 4), personRepository.findById(person.id))
+        assertPerson(secondPerson.copy(name = "Eve", email = "eva_smith@example.com"), personRepository.findById(secondPerson.id))
+    }
+
+    @Test
+    fun updateAll_morePatchesThanBatchSize_allUpdated() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        (1..5).forEach {
+            insertPerson(Person(id = it, name = "Person$it", surname = "Surname$it", email = "person$it@email.com", logoId = 1))
+        }
+
+        val updatedRows = personRepository.updateAll((1..5).map { PersonPatch(id = it, logoId = 2) })
+
+        assertEquals(listOf(1, 1, 1, 1, 1), updatedRows.toList())
+        assertTrue(personRepository.findAll().all { it.logoId == 2 })
+    }
+
+    @Test
+    fun updateMatching_filterByLogoAndDomain_onlyMatchingUpdated() {
+        val secondPerson = Person(2, "Eva", "Smith", "eva_smith@other.com", 1)
+        val thirdPerson = Person(3, "Patrick", "Brown", "patrick_brown@email.com", 2)
+        insertPerson(secondPerson)
+        insertPerson(thirdPerson)
+
+        val updated = personRepository.updateMatching(PersonFilter(logoId = 1, emailDomain = "email.com"),
+            PersonPatch(emailDomain = "example.com", logoId = 3))
+
+        assertEquals(1, updated)
+        assertPerson(person.copy(email = "adam_smith@example.com", logoId = 3), personRepository.findById(person.id))
+        assertPerson(secondPerson, personRepository.findById(secondPerson.id))
+        assertPerson(thirdPerson, personRepository.findById(thirdPerson.id))
+    }
+
+    @Test
+    fun updateMatching_emailsWithoutAtOrTooLong_emailsLeftUnchanged() {
+        val withoutAt = Person(2, "Eva", "Smith", "eva_smith", 1)
+        val longLocalPart = Person(3, "Patrick", "Brown", "patrick_brown_with_a_long_address@email.com", 1)
+        insertPerson(withoutAt)
+        insertPerson(longLocalPart)
+
+        val updated = personRepository.updateMatching(PersonFilter(logoId = 1), PersonPatch(emailDomain = "longer-domain.org", logoId = 2))
+
+        assertEquals(3, updated)
+        assertPerson(person.copy(email = "adam_smith@longer-domain.org", logoId = 2), personRepository.findById(person.id))
+        assertPerson(withoutAt.copy(logoId = 2), personRepository.findById(withoutAt.id))
+        assertPerson(longLocalPart.copy(logoId = 2), personRepository.findById(longLocalPart.id))
+    }
+
+    @Test
+    fun updateMatching_filterByIds_onlyListedUpdated() {
+        val secondPerson = createPersonEva()
+        insertPerson(secondPerson)
+
+        val updated = personRepository.updateMatching(PersonFilter(ids = listOf(secondPerson.id, ID_NONEXISTENT_USER)),
+            PersonPatch(logoId = 4))
+
+        assertEquals(1, updated)
+        assertEquals(1, personRepository.findById(person.id).logoId)
+        assertEquals(4, personRepository.findById(secondPerson.id).logoId)
+    }
+
     @Test
     fun delete_givenExistingPerson_personDeleted() {
         assertNotNull(personRepository.findById(person.id))
@@ -268,6 +609,38 @@ class JdbcPersonRepositoryIntegrationTest {
         assertTrue(persons.isEmpty())
     }
 
+    @Test
+    fun deleteByIds_existingAndMissingIds_existingDeletedAndCountReturned() {
+        val secondPerson = createPersonEva()
+        insertPerson(secondPerson)
+
+        val deleted = personRepository.deleteByIds(listOf(person.id, ID_NONEXISTENT_USER))
+
+        assertEquals(1, deleted)
+        assertEquals(listOf(secondPerson), personRepository.findAll())
+    }
+
+    @Test
+    fun deleteByIds_moreIdsThanOneChunk_allDeleted() {
+        jdbcTemplate.update(QUERY_DELETE_PEOPLE)
+        (1..1200).forEach {
+            insertPerson(Person(id = it, name = "Person$it", surname = "Surname$it", email = "person$it@email.com", logoId = 1))
+        }
+
+        val deleted = personRepository.deleteByIds((1..1100).toList())
+
+        assertEquals(1100, deleted)
+        assertEquals(100, personRepository.count())
+    }
+
+    @Test
+    fun deleteByIds_noIds_nothingDeleted() {
+        val deleted = personRepository.deleteByIds(listOf())
+
+        assertEquals(0, deleted)
+        assertEquals(1, personRepository.count())
+    }
+
     @Test
     fun deleteAll_givenDatabaseWithPeople_peopleDeleted() {
         val newPerson = createPersonEva()
@@ -301,6 +674,17 @@ class JdbcPersonRepositoryIntegrationTest {
         jdbcTemplate.update(QUERY_INSERT_PERSON, person.id, person.name, person.surname, person.email, person.logoId)
     }
 
+    private fun walkForward(size: Int, sort: String, reverse: Boolean): List<Person> {
+        val walked = mutableListOf<Person>()
+        var page = personRepository.findPeoplePage(null, size, sort, reverse, false)
+        walked += page.people
+        while (page.nextCursor != null) {
+            page = personRepository.findPeoplePage(PageCursor.decode(page.nextCursor!!), size, sort, reverse, false)
+            walked += page.people
+        }
+        return walked
+    }
+
     private fun assertPerson(expected: Person, actual: Person) {
         assertAll("Person",
             Executable { assertEquals(expected.name, actual.name, "Name should match") },
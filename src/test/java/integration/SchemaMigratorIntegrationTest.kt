@@ -0,0 +1,105 @@
+package integration
+
+import integration.configs.IntegrationTestConfig
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.test.context.junit.jupiter.SpringExtension
+import com.mkrasikoff.contactbook.migrations.SchemaMigrator
+
+/**
+ * Checks that the migrations apply on top of the test schema.sql and that the list queries of
+ * JdbcPersonRepository are served by the indexes they create. The queries below have the same shape
+ * as the ones the repository builds for ascending pages.
+ *
+ * H2 only walks indexes forward, so descending scans are not checked here. MySQL reads the same
+ * indexes backwards, which EXPLAIN shows as "Backward index scan".
+ */
+@ExtendWith(SpringExtension::class)
+@ContextConfiguration(classes = [IntegrationTestConfig::class])
+class SchemaMigratorIntegrationTest {
+
+    companion object {
+        private const val QUERY_FIRST_PAGE = "SELECT id, name, surname, logoId FROM person ORDER BY %1\$s ASC, id ASC LIMIT 11"
+        private const val QUERY_FIRST_PAGE_WITH_TOTAL = "SELECT id, name, surname, logoId, " +
+                "(SELECT COUNT(*) FROM person) AS total FROM person ORDER BY %1\$s ASC, id ASC LIMIT 11"
+        private const val QUERY_NEXT_PAGE = "SELECT id, name, surname, logoId FROM person " +
+                "WHERE (%1\$s > ? OR (%1\$s = ? AND id > ?)) ORDER BY %1\$s ASC, id ASC LIMIT 11"
+        private const val INDEX_SORTED = "/* index sorted */"
+
+        private val INDEXES = mapOf(
+                "name" to "IDX_PERSON_NAME_ID",
+                "surname" to "IDX_PERSON_SURNAME_ID",
+                "logoId" to "IDX_PERSON_LOGO_ID"
+        )
+    }
+
+    @Autowired
+    lateinit var schemaMigrator: SchemaMigrator
+
+    @Autowired
+    lateinit var jdbcTemplate: JdbcTemplate
+
+    @Test
+    fun migrate_migrationsAlreadyApplied_nothingApplied() {
+        val applied = schemaMigrator.migrate()
+
+        assertEquals(listOf<Int>(), applied)
+        assertEquals(listOf(1, 2), schemaMigrator.appliedVersions())
+    }
+
+    @Test
+    fun migrate_migrationsApplied_descriptionsRecorded() {
+        val descriptions = jdbcTemplate.queryForList("SELECT description FROM schema_version ORDER BY version", String::class.java)
+
+        assertEquals(listOf("create person table", "add person indexes"), descriptions)
+    }
+
+    @Test
+    fun explain_firstPageBySortColumn_compositeIndexUsedForOrder() {
+        INDEXES.forEach { (column, index) ->
+            val plan = explain(String.format(QUERY_FIRST_PAGE, column))
+
+            assertUsesIndex(plan, index)
+        }
+    }
+
+    @Test
+    fun explain_firstPageWithTotal_compositeIndexUsedForOrder() {
+        INDEXES.forEach { (column, index) ->
+            val plan = explain(String.format(QUERY_FIRST_PAGE_WITH_TOTAL, column))
+
+            assertUsesIndex(plan, index)
+        }
+    }
+
+    @Test
+    fun explain_nextPageBySortColumn_compositeIndexUsedForSeekAndOrder() {
+        mapOf("name" to "Adam", "surname" to "Smith", "logoId" to 1).forEach { (column, value) ->
+            val plan = explain(String.format(QUERY_NEXT_PAGE, column), value, value, 1)
+
+            assertUsesIndex(plan, INDEXES.getValue(column))
+        }
+    }
+
+    @Test
+    fun explain_nextPageById_primaryKeyUsedForSeek() {
+        val plan = explain("SELECT id, name, surname, logoId FROM person WHERE id > ? ORDER BY id ASC LIMIT 11", 1)
+
+        assertTrue(plan.contains("PRIMARY_KEY"), plan)
+        assertTrue(plan.contains(INDEX_SORTED), plan)
+    }
+
+    private fun explain(query: String, vararg args: Any): String {
+        return jdbcTemplate.queryForObject("EXPLAIN $query", String::class.java, *args)!!
+    }
+
+    private fun assertUsesIndex(plan: String, index: String) {
+        assertTrue(plan.contains("/* PUBLIC.$index"), plan)
+        assertTrue(plan.contains(INDEX_SORTED), plan)
+    }
+}
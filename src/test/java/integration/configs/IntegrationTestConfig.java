@@ -3,10 +3,13 @@ package integration.configs;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.mkrasikoff.contactbook.migrations.SchemaMigrator;
 import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
-import com.mkrasikoff.contactbook.services.GenerateService;
 
 import javax.sql.DataSource;
 
@@ -28,12 +31,24 @@ public class IntegrationTestConfig {
     }
 
     @Bean
-    public GenerateService generateService() {
-        return new GenerateService();
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
     }
 
     @Bean
-    public JdbcPersonRepository personRepository(JdbcTemplate jdbcTemplate, GenerateService generateService) {
-        return new JdbcPersonRepository(jdbcTemplate, generateService);
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    @Bean
+    public SchemaMigrator schemaMigrator(JdbcTemplate jdbcTemplate) {
+        SchemaMigrator schemaMigrator = new SchemaMigrator(jdbcTemplate);
+        schemaMigrator.migrate();
+        return schemaMigrator;
+    }
+
+    @Bean
+    public JdbcPersonRepository personRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        return new JdbcPersonRepository(jdbcTemplate, transactionTemplate, 2, 2);
     }
 }
@@ -0,0 +1,62 @@
+package loadtest;
+
+import com.mkrasikoff.contactbook.configs.DispatcherServletInitializer;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import java.io.File;
+
+/**
+ * An embedded Tomcat that serves the application the way the WAR does.
+ *
+ * The context is rooted at src/main/webapp, so the views and static resources are read from the sources,
+ * and it is initialized by DispatcherServletInitializer, so SpringConfig and the filters are the ones
+ * of the deployed application.
+ */
+final class EmbeddedServer implements AutoCloseable {
+
+    static final String CONTEXT_PATH = "/contact-book";
+
+    private static final String WEBAPP_DIRECTORY = "src/main/webapp";
+    private static final String BASE_DIRECTORY = "target/loadtest-tomcat";
+
+    private final Tomcat tomcat;
+
+    private EmbeddedServer(Tomcat tomcat) {
+        this.tomcat = tomcat;
+    }
+
+    /**
+     * Starts the server.
+     * @param port the port to listen on, 0 for any free port.
+     * @return the started server.
+     * @throws LifecycleException if the server or the application fails to start.
+     */
+    static EmbeddedServer start(int port) throws LifecycleException {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(new File(BASE_DIRECTORY).getAbsolutePath());
+        tomcat.setPort(port);
+        tomcat.getConnector();
+
+        Context context = tomcat.addContext(CONTEXT_PATH, new File(WEBAPP_DIRECTORY).getAbsolutePath());
+        context.addServletContainerInitializer(
+                (classes, servletContext) -> new DispatcherServletInitializer().onStartup(servletContext), null);
+
+        tomcat.start();
+        return new EmbeddedServer(tomcat);
+    }
+
+    /**
+     * Returns the base URL of the application.
+     * @return the URL, without a trailing slash.
+     */
+    String baseUrl() {
+        return "http://localhost:" + tomcat.getConnector().getLocalPort() + CONTEXT_PATH;
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
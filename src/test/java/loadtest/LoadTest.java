@@ -0,0 +1,352 @@
+package loadtest;
+
+import com.mkrasikoff.contactbook.generate.NamePools;
+import com.mkrasikoff.contactbook.generate.PeopleGenerator;
+import com.mkrasikoff.contactbook.migrations.SchemaMigrator;
+import com.mkrasikoff.contactbook.models.Person;
+import com.mkrasikoff.contactbook.repos.JdbcPersonRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This command measures the throughput and latency of the HTML pages under a mixed workload:
+ * mvn -P load-test test -DskipTests -Dloadtest.threads=32
+ *
+ * It fills an in-memory H2 database with loadtest.rows generated people (unless the table already has rows),
+ * starts the application in an EmbeddedServer against it, waits until /health/ready answers 200 and then
+ * runs loadtest.threads clients for loadtest.warmup-seconds and loadtest.duration-seconds. Every client
+ * picks the next request from the weighted loadtest.mix of list (first page), sort (first page by a random
+ * column and direction), search (the full name of a generated person), detail (a random person) and create
+ * (a form submission). Only the requests of the measured period are reported.
+ *
+ * The run fails with exit code 1 if the throughput is below loadtest.min-throughput requests per second,
+ * the 99th percentile of any operation is above loadtest.max-p99-ms, or more than loadtest.max-error-rate
+ * of the requests fail, so it can be used as a regression gate. A threshold of 0 is not checked.
+ * Another database can be used with -Ddb.url, -Ddb.driver-class-name, -Ddb.username and -Ddb.password.
+ */
+public final class LoadTest {
+
+    /**
+     * The requests of the workload.
+     */
+    enum Operation {
+        LIST,
+        SORT,
+        SEARCH,
+        DETAIL,
+        CREATE
+    }
+
+    private static final String[] SORT_COLUMNS = {"id", "name", "surname", "logoId"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final long READY_TIMEOUT_MS = 120_000;
+
+    private final int threads;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final int rows;
+    private final PeopleGenerator generator;
+
+    private HttpClient client;
+    private String baseUrl;
+    private int firstId;
+    private int lastId;
+
+    private LoadTest(int threads, long warmupSeconds, long durationSeconds, Map<Operation, Integer> mix, int rows) {
+        this.threads = threads;
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.rows = rows;
+        this.generator = new PeopleGenerator(NamePools.english(), 42);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("db.driver-class-name", System.getProperty("db.driver-class-name", "org.h2.Driver"));
+        System.setProperty("db.url", System.getProperty("db.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1"));
+        System.setProperty("db.username", System.getProperty("db.username", "sa"));
+        System.setProperty("db.password", System.getProperty("db.password", ""));
+
+        LoadTest loadTest = new LoadTest(
+                Integer.getInteger("loadtest.threads", 16),
+                Long.getLong("loadtest.warmup-seconds", 10),
+                Long.getLong("loadtest.duration-seconds", 30),
+                parseMix(System.getProperty("loadtest.mix", "list=40,sort=15,search=15,detail=25,create=5")),
+                Integer.getInteger("loadtest.rows", 100_000));
+
+        Map<Operation, Samples> results = loadTest.run(Integer.getInteger("loadtest.port", 0));
+
+        List<String> failures = loadTest.report(results,
+                Double.parseDouble(System.getProperty("loadtest.min-throughput", "0")),
+                Double.parseDouble(System.getProperty("loadtest.max-p99-ms", "0")),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")));
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private Map<Operation, Samples> run(int port) throws Exception {
+        seed();
+
+        try (EmbeddedServer server = EmbeddedServer.start(port)) {
+            baseUrl = server.baseUrl();
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            awaitReady();
+
+            System.out.println("Running " + threads + " clients against " + baseUrl + " for "
+                    + TimeUnit.NANOSECONDS.toSeconds(warmupNanos) + " s of warmup and "
+                    + TimeUnit.NANOSECONDS.toSeconds(durationNanos) + " s of measurement");
+
+            long measureFrom = System.nanoTime() + warmupNanos;
+            long measureUntil = measureFrom + durationNanos;
+            List<Client> clients = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                Client worker = new Client(i, measureFrom, measureUntil);
+                worker.thread.start();
+                clients.add(worker);
+            }
+
+            Map<Operation, Samples> results = new EnumMap<>(Operation.class);
+            for (Client worker : clients) {
+                worker.thread.join();
+                worker.samples.forEach((operation, samples) ->
+                        results.computeIfAbsent(operation, key -> new Samples()).addAll(samples));
+            }
+            return results;
+        }
+    }
+
+    private void seed() {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(System.getProperty("db.driver-class-name"));
+        config.setJdbcUrl(System.getProperty("db.url"));
+        config.setUsername(System.getProperty("db.username"));
+        config.setPassword(System.getProperty("db.password"));
+        config.setPoolName("loadtest-seed-pool");
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            JdbcPersonRepository personRepository = new JdbcPersonRepository(jdbcTemplate,
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)), 1000, 1000);
+
+            new SchemaMigrator(jdbcTemplate).migrate();
+            if (personRepository.isEmpty()) {
+                System.out.println("Inserting " + rows + " people");
+                generator.generate(rows, 10_000, 1, personRepository::saveAll);
+            }
+
+            firstId = jdbcTemplate.queryForObject("SELECT COALESCE(MIN(id), 0) FROM person", Integer.class);
+            lastId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM person", Integer.class);
+        }
+    }
+
+    private void awaitReady() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/health/ready")).build();
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MS;
+
+        while (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("The application was not ready within " + READY_TIMEOUT_MS + " ms");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private HttpRequest nextRequest(Operation operation, SplittableRandom random) {
+        switch (operation) {
+            case SORT:
+                return get("/people?sort=" + SORT_COLUMNS[random.nextInt(SORT_COLUMNS.length)] + "&reverse=" + random.nextBoolean());
+            case SEARCH:
+                Person match = generator.generate(random.nextInt(Math.max(rows, 1)));
+                return get("/people/search?query=" + encode(match.getName() + " " + match.getSurname()));
+            case DETAIL:
+                return get("/people/" + (firstId + random.nextInt(Math.max(lastId - firstId + 1, 1))));
+            case CREATE:
+                Person person = generator.generate(rows + random.nextInt(Integer.MAX_VALUE - rows));
+                String form = "name=" + encode(person.getName()) + "&surname=" + encode(person.getSurname())
+                        + "&email=" + encode(person.getEmail()) + "&logoId=" + person.getLogoId();
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/people"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build();
+            default:
+                return get("/people");
+        }
+    }
+
+    private Operation nextOperation(SplittableRandom random) {
+        int pick = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) return entry.getKey();
+        }
+        throw new IllegalStateException("The mix has no operations");
+    }
+
+    private List<String> report(Map<Operation, Samples> results, double minThroughput, double maxP99Ms, double maxErrorRate) {
+        double seconds = durationNanos / 1e9;
+        Samples total = new Samples();
+        List<String> failures = new ArrayList<>();
+
+        System.out.printf("%n%-8s %10s %8s %10s", "", "requests", "errors", "req/s");
+        for (double percentile : PERCENTILES) System.out.printf(" %9s", "p" + formatPercentile(percentile));
+        System.out.printf(" %9s%n", "max");
+
+        for (Map.Entry<Operation, Samples> entry : results.entrySet()) {
+            String name = entry.getKey().name().toLowerCase(Locale.ROOT);
+            Samples samples = entry.getValue();
+            printRow(name, samples, seconds);
+            total.addAll(samples);
+
+            double p99 = samples.percentileMs(99);
+            if (maxP99Ms > 0 && p99 > maxP99Ms) {
+                failures.add(String.format(Locale.ROOT, "p99 of %s is %.1f ms, above %.1f ms", name, p99, maxP99Ms));
+            }
+        }
+        printRow("total", total, seconds);
+
+        double throughput = total.count / seconds;
+        double errorRate = total.count + total.errors == 0 ? 0 : (double) total.errors / (total.count + total.errors);
+        if (minThroughput > 0 && throughput < minThroughput) {
+            failures.add(String.format(Locale.ROOT, "throughput is %.1f req/s, below %.1f req/s", throughput, minThroughput));
+        }
+        if (errorRate > maxErrorRate) {
+            failures.add(String.format(Locale.ROOT, "error rate is %.4f, above %.4f", errorRate, maxErrorRate));
+        }
+        if (total.count == 0) {
+            failures.add("no request succeeded");
+        }
+        return failures;
+    }
+
+    private static void printRow(String name, Samples samples, double seconds) {
+        System.out.printf(Locale.ROOT, "%-8s %10d %8d %10.1f", name, samples.count, samples.errors, samples.count / seconds);
+        for (double percentile : PERCENTILES) System.out.printf(Locale.ROOT, " %9.2f", samples.percentileMs(percentile));
+        System.out.printf(Locale.ROOT, " %9.2f%n", samples.percentileMs(100));
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) weights.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (weights.isEmpty()) throw new IllegalArgumentException("The mix should contain at least one operation: " + mix);
+        return weights;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A client thread that sends one request after the other and records the latencies of the measured period.
+     */
+    private final class Client implements Runnable {
+        private final Thread thread;
+        private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long measureUntil;
+
+        private Client(int index, long measureFrom, long measureUntil) {
+            this.thread = new Thread(this, "loadtest-client-" + index);
+            this.random = new SplittableRandom(index);
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            long start;
+            while ((start = System.nanoTime()) < measureUntil) {
+                Operation operation = nextOperation(random);
+                boolean succeeded;
+                try {
+                    int status = client.send(nextRequest(operation, random), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    succeeded = status < 400;
+                } catch (IOException exc) {
+                    succeeded = false;
+                } catch (InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                if (start >= measureFrom) {
+                    Samples operationSamples = samples.computeIfAbsent(operation, key -> new Samples());
+                    if (succeeded) operationSamples.add(System.nanoTime() - start);
+                    else operationSamples.errors++;
+                }
+            }
+        }
+    }
+
+    /**
+     * The latencies of the successful requests of one operation, and the number of failed ones.
+     */
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int count;
+        private long errors;
+        private boolean sorted;
+
+        private void add(long latencyNanos) {
+            if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+            nanos[count++] = latencyNanos;
+            sorted = false;
+        }
+
+        private void addAll(Samples other) {
+            for (int i = 0; i < other.count; i++) add(other.nanos[i]);
+            errors += other.errors;
+        }
+
+        private double percentileMs(double percentile) {
+            if (count == 0) return 0;
+            if (!sorted) {
+                Arrays.sort(nanos, 0, count);
+                sorted = true;
+            }
+            int index = (int) Math.ceil(percentile / 100 * count) - 1;
+            return nanos[Math.max(0, Math.min(index, count - 1))] / 1e6;
+        }
+    }
+}